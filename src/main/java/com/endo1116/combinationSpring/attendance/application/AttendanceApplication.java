@@ -13,7 +13,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance_applications")
+@Table(name = "attendance_applications", indexes = {
+    @Index(name = "idx_attendance_applications_created_at_id", columnList = "createdAt, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
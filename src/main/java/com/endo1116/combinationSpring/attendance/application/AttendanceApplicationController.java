@@ -1,12 +1,17 @@
 package com.endo1116.combinationSpring.attendance.application;
 
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.NdjsonWriter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -18,6 +23,7 @@ import java.util.List;
 public class AttendanceApplicationController {
 
     private final AttendanceApplicationService attendanceApplicationService;
+    private final NdjsonWriter ndjsonWriter;
 
     @PostMapping("/correction")
     @ResponseStatus(HttpStatus.CREATED)
@@ -56,6 +62,19 @@ public class AttendanceApplicationController {
         return attendanceApplicationService.getApplications();
     }
 
+    @GetMapping("/page")
+    public KeysetPage<AttendanceApplication> page(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        return attendanceApplicationService.getApplicationsPage(cursor, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ndjsonWriter.stream(attendanceApplicationService::streamApplications);
+    }
+
     @PutMapping("/{applicationId}/status")
     public AttendanceApplication updateStatus(
         @PathVariable Long applicationId,
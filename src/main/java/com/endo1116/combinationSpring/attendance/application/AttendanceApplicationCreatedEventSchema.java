@@ -0,0 +1,65 @@
+package com.endo1116.combinationSpring.attendance.application;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link AttendanceApplicationCreatedEvent} のバイナリスキーマ
+ * 
+ * バージョン1: applicationId, employeeId, type, status, targetDate, startDate, endDate, createdAt, reason の順
+ */
+@Component
+public class AttendanceApplicationCreatedEventSchema implements EventSchema<AttendanceApplicationCreatedEvent> {
+
+    static final int SCHEMA_ID = 12;
+    static final int VERSION = 1;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<AttendanceApplicationCreatedEvent> type() {
+        return AttendanceApplicationCreatedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(AttendanceApplicationCreatedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getApplicationId());
+        writeString(out, event.getEmployeeId());
+        writeEnum(out, event.getType());
+        writeEnum(out, event.getStatus());
+        writeDate(out, event.getTargetDate());
+        writeDate(out, event.getStartDate());
+        writeDate(out, event.getEndDate());
+        writeDateTime(out, event.getCreatedAt());
+        writeString(out, event.getReason());
+    }
+
+    @Override
+    public AttendanceApplicationCreatedEvent read(DataInputStream in, int version) throws IOException {
+        return new AttendanceApplicationCreatedEvent(
+            readLong(in),
+            readString(in),
+            readEnum(in, AttendanceApplicationType.class),
+            readEnum(in, AttendanceApplicationStatus.class),
+            readDate(in),
+            readDate(in),
+            readDate(in),
+            readDateTime(in),
+            readString(in)
+        );
+    }
+}
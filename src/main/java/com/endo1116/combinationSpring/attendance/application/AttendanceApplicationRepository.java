@@ -1,8 +1,15 @@
 package com.endo1116.combinationSpring.attendance.application;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface AttendanceApplicationRepository extends JpaRepository<AttendanceApplication, Long> {
@@ -20,4 +27,22 @@ public interface AttendanceApplicationRepository extends JpaRepository<Attendanc
         LocalDate workDate1,
         LocalDate workDate2
     );
+
+    /**
+     * キーセットページング（作成日時 + id 順）の先頭ページ
+     */
+    @Query("select a from AttendanceApplication a order by a.createdAt, a.id")
+    List<AttendanceApplication> findFirstPage(Pageable pageable);
+
+    /**
+     * キーセットページング（作成日時 + id 順）の次ページ
+     */
+    @Query("select a from AttendanceApplication a where a.createdAt > :createdAt or (a.createdAt = :createdAt and a.id > :id) order by a.createdAt, a.id")
+    List<AttendanceApplication> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * id が afterId より大きい行を id 順に取得する（全件出力を短い読み取りに分けるため）
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<AttendanceApplication> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 }
@@ -2,15 +2,21 @@ package com.endo1116.combinationSpring.attendance.application;
 
 import com.endo1116.combinationSpring.attendance.record.AttendanceRecordedEvent;
 import com.endo1116.combinationSpring.attendance.record.AttendanceStatus;
+import com.endo1116.combinationSpring.common.KeysetCursor;
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.KeysetScan;
+import com.endo1116.combinationSpring.config.OrderedModuleListener;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +25,7 @@ public class AttendanceApplicationService {
 
     private final AttendanceApplicationRepository attendanceApplicationRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Transactional
     public AttendanceApplication createApplication(AttendanceApplication application) {
@@ -54,6 +61,24 @@ public class AttendanceApplicationService {
         return attendanceApplicationRepository.findAll();
     }
 
+    /**
+     * 作成日時 + id のキーセットページングで勤怠申請を取得
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AttendanceApplication> getApplicationsPage(String cursor, int limit) {
+        return KeysetPage.fetch(cursor, limit, LocalDateTime::parse,
+            attendanceApplicationRepository::findFirstPage, attendanceApplicationRepository::findPageAfter,
+            application -> new KeysetCursor(application.getCreatedAt().toString(), application.getId()));
+    }
+
+    /**
+     * 全勤怠申請を id 順に1件ずつ consumer に渡す（{@link KeysetScan}）
+     */
+    public void streamApplications(Consumer<AttendanceApplication> consumer) {
+        KeysetScan.forEachById(entityManager,
+            attendanceApplicationRepository::findByIdGreaterThanOrderByIdAsc, AttendanceApplication::getId, consumer);
+    }
+
     @Transactional(readOnly = true)
     public List<AttendanceApplication> getApplicationsForEmployee(String employeeId) {
         return attendanceApplicationRepository.findByEmployeeId(employeeId);
@@ -64,7 +89,7 @@ public class AttendanceApplicationService {
         return attendanceApplicationRepository.findByTypeAndStatus(type, AttendanceApplicationStatus.PENDING);
     }
 
-    @ApplicationModuleListener
+    @OrderedModuleListener(key = "employeeId")
     public void handleAttendanceRecordedEvent(AttendanceRecordedEvent event) {
         if (event.getStatus() == AttendanceStatus.LEAVE) {
             autoApprovePendingLeave(event.getEmployeeId(), event.getWorkDate());
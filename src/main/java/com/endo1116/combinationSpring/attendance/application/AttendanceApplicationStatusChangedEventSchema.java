@@ -0,0 +1,59 @@
+package com.endo1116.combinationSpring.attendance.application;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link AttendanceApplicationStatusChangedEvent} のバイナリスキーマ
+ * 
+ * バージョン1: applicationId, employeeId, type, oldStatus, newStatus, resolvedAt の順
+ */
+@Component
+public class AttendanceApplicationStatusChangedEventSchema implements EventSchema<AttendanceApplicationStatusChangedEvent> {
+
+    static final int SCHEMA_ID = 13;
+    static final int VERSION = 1;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<AttendanceApplicationStatusChangedEvent> type() {
+        return AttendanceApplicationStatusChangedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(AttendanceApplicationStatusChangedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getApplicationId());
+        writeString(out, event.getEmployeeId());
+        writeEnum(out, event.getType());
+        writeEnum(out, event.getOldStatus());
+        writeEnum(out, event.getNewStatus());
+        writeDateTime(out, event.getResolvedAt());
+    }
+
+    @Override
+    public AttendanceApplicationStatusChangedEvent read(DataInputStream in, int version) throws IOException {
+        return new AttendanceApplicationStatusChangedEvent(
+            readLong(in),
+            readString(in),
+            readEnum(in, AttendanceApplicationType.class),
+            readEnum(in, AttendanceApplicationStatus.class),
+            readEnum(in, AttendanceApplicationStatus.class),
+            readDateTime(in)
+        );
+    }
+}
@@ -14,7 +14,9 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "attendance_records")
+@Table(name = "attendance_records", indexes = {
+    @Index(name = "idx_attendance_records_work_date_id", columnList = "workDate, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -30,6 +32,12 @@ public class AttendanceRecord {
     @Column(nullable = false)
     private String employeeId;
 
+    /**
+     * 所属組織（未指定の場合は "default" の管理設定を適用する）
+     */
+    @Column(length = 64)
+    private String organizationId;
+
     @NotNull
     @Column(nullable = false)
     private LocalDate workDate;
@@ -0,0 +1,83 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 勤怠記録をJDBCバッチでまとめて登録する
+ * 
+ * AttendanceRecord.id は IDENTITY 採番のため Hibernate ではINSERTをバッチ化できない。
+ * 採番結果は last_insert_rowid() から逆算する（OrderBulkWriter と同じ方式）。
+ */
+@Component
+@RequiredArgsConstructor
+class AttendanceRecordBulkWriter {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO attendance_records
+            (employee_id, organization_id, work_date, clock_in, status, note, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 勤怠記録をまとめて登録し、採番された id・作成日時・初期ステータスを各エンティティに設定する
+     */
+    @Transactional
+    public void insertAll(List<AttendanceRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        records.forEach(record -> {
+            if (record.getStatus() == null) {
+                record.setStatus(AttendanceStatus.WORKING);
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AttendanceRecord record = records.get(i);
+                ps.setString(1, record.getEmployeeId());
+                ps.setString(2, record.getOrganizationId());
+                ps.setDate(3, Date.valueOf(record.getWorkDate()));
+                if (record.getClockIn() == null) {
+                    ps.setNull(4, Types.TIMESTAMP);
+                } else {
+                    ps.setTimestamp(4, Timestamp.valueOf(record.getClockIn()));
+                }
+                ps.setString(5, record.getStatus().name());
+                ps.setString(6, record.getNote());
+                ps.setTimestamp(7, timestamp);
+                ps.setTimestamp(8, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return records.size();
+            }
+        });
+
+        Long lastId = jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Long.class);
+        long firstId = lastId - records.size() + 1;
+        for (int i = 0; i < records.size(); i++) {
+            AttendanceRecord record = records.get(i);
+            record.setId(firstId + i);
+            record.setCreatedAt(now);
+            record.setUpdatedAt(now);
+        }
+    }
+}
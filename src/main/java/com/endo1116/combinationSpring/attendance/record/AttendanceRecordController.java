@@ -1,16 +1,22 @@
 package com.endo1116.combinationSpring.attendance.record;
 
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.NdjsonWriter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/attendance-records")
@@ -18,12 +24,15 @@ import java.util.List;
 public class AttendanceRecordController {
 
     private final AttendanceRecordService attendanceRecordService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ClockInJournal clockInJournal;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public AttendanceRecord create(@Valid @RequestBody CreateAttendanceRecordRequest request) {
         AttendanceRecord record = AttendanceRecord.builder()
             .employeeId(request.employeeId())
+            .organizationId(request.organizationId())
             .workDate(request.workDate())
             .clockIn(request.clockIn())
             .clockOut(request.clockOut())
@@ -33,6 +42,26 @@ public class AttendanceRecordController {
         return attendanceRecordService.createRecord(record);
     }
 
+    /**
+     * 出勤打刻（ジャーナルに記録した時点で 202 を返し、勤怠記録の登録は非同期）
+     */
+    @PostMapping("/clock-in")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ClockInReceipt clockIn(@Valid @RequestBody ClockInRequest request) {
+        return attendanceRecordService.clockIn(new ClockInCommand(
+            request.employeeId(),
+            request.organizationId(),
+            request.workDate(),
+            request.clockIn(),
+            request.note()
+        ));
+    }
+
+    @GetMapping("/clock-in/stats")
+    public Map<String, Object> clockInStats() {
+        return clockInJournal.stats();
+    }
+
     @GetMapping
     public List<AttendanceRecord> list(
         @RequestParam(required = false) String employeeId,
@@ -48,6 +77,19 @@ public class AttendanceRecordController {
         return attendanceRecordService.getRecords();
     }
 
+    @GetMapping("/page")
+    public KeysetPage<AttendanceRecord> page(
+        @RequestParam(required = false) String cursor,
+        @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit
+    ) {
+        return attendanceRecordService.getRecordsPage(cursor, limit);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        return ndjsonWriter.stream(attendanceRecordService::streamRecords);
+    }
+
     @GetMapping("/{recordId}")
     public AttendanceRecord get(@PathVariable Long recordId) {
         return attendanceRecordService.getRecord(recordId);
@@ -71,6 +113,7 @@ public class AttendanceRecordController {
 
     public record CreateAttendanceRecordRequest(
         @NotBlank String employeeId,
+        String organizationId,
         @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workDate,
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime clockIn,
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime clockOut,
@@ -78,6 +121,14 @@ public class AttendanceRecordController {
         String note
     ) {}
 
+    public record ClockInRequest(
+        @NotBlank String employeeId,
+        String organizationId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate workDate,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime clockIn,
+        String note
+    ) {}
+
     public record UpdateActualTimesRequest(
         @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime clockIn,
         @NotNull @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime clockOut
@@ -1,6 +1,12 @@
 package com.endo1116.combinationSpring.attendance.record;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -9,4 +15,22 @@ public interface AttendanceRecordRepository extends JpaRepository<AttendanceReco
     List<AttendanceRecord> findByEmployeeId(String employeeId);
 
     List<AttendanceRecord> findByEmployeeIdAndWorkDateBetween(String employeeId, LocalDate start, LocalDate end);
+
+    /**
+     * キーセットページング（勤務日 + id 順）の先頭ページ
+     */
+    @Query("select r from AttendanceRecord r order by r.workDate, r.id")
+    List<AttendanceRecord> findFirstPage(Pageable pageable);
+
+    /**
+     * キーセットページング（勤務日 + id 順）の次ページ
+     */
+    @Query("select r from AttendanceRecord r where r.workDate > :workDate or (r.workDate = :workDate and r.id > :id) order by r.workDate, r.id")
+    List<AttendanceRecord> findPageAfter(@Param("workDate") LocalDate workDate, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * id が afterId より大きい行を id 順に取得する（全件出力を短い読み取りに分けるため）
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<AttendanceRecord> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 }
@@ -1,17 +1,22 @@
 package com.endo1116.combinationSpring.attendance.record;
 
 import com.endo1116.combinationSpring.attendance.setting.ManagementSettingUpdatedEvent;
+import com.endo1116.combinationSpring.common.KeysetCursor;
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.KeysetScan;
+import com.endo1116.combinationSpring.config.OrderedModuleListener;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -20,8 +25,10 @@ public class AttendanceRecordService {
 
     private final AttendanceRecordRepository attendanceRecordRepository;
     private final ApplicationEventPublisher eventPublisher;
-    private final AtomicReference<ManagementSettingSnapshot> latestManagementSetting =
-        new AtomicReference<>(ManagementSettingSnapshot.defaultSnapshot());
+    private final EntityManager entityManager;
+    private final ManagementSettingTimeline managementSettingTimeline;
+    private final AttendanceRecordBulkWriter attendanceRecordBulkWriter;
+    private final ClockInJournal clockInJournal;
 
     @Transactional
     public AttendanceRecord createRecord(AttendanceRecord record) {
@@ -34,11 +41,59 @@ public class AttendanceRecordService {
         return saved;
     }
 
+    /**
+     * 出勤打刻を受け付ける
+     * 
+     * ジャーナルへの記録（fsync）までを同期で行い、DB への登録は ClockInWriter がまとめて行う。
+     * 書き込み待ちが上限に達している場合は ClockInRejectedException（503）で拒否する。
+     */
+    public ClockInReceipt clockIn(ClockInCommand command) {
+        if (command.employeeId() == null || command.employeeId().isBlank()) {
+            throw new IllegalArgumentException("社員IDは必須です");
+        }
+        LocalDateTime clockIn = command.clockIn() != null ? command.clockIn() : LocalDateTime.now();
+        LocalDate workDate = command.workDate() != null ? command.workDate() : clockIn.toLocalDate();
+        ClockInCommand normalized = new ClockInCommand(
+            command.employeeId(), command.organizationId(), workDate, clockIn, command.note());
+        try {
+            return ClockInReceipt.from(clockInJournal.append(normalized).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ClockInRejectedException rejected) {
+                throw rejected;
+            }
+            throw new ClockInRejectedException("出勤打刻を記録できませんでした", e.getCause());
+        }
+    }
+
+    /**
+     * ジャーナルの出勤打刻をまとめて登録し、同じトランザクションで登録済みの通番を記録する
+     */
+    @Transactional
+    public List<AttendanceRecord> applyClockIns(List<ClockInEntry> entries) {
+        List<AttendanceRecord> records = entries.stream()
+            .map(entry -> AttendanceRecord.builder()
+                .employeeId(entry.employeeId())
+                .organizationId(entry.organizationId())
+                .workDate(entry.workDate())
+                .clockIn(entry.clockIn())
+                .status(AttendanceStatus.WORKING)
+                .note(entry.note())
+                .build())
+            .toList();
+        attendanceRecordBulkWriter.insertAll(records);
+        records.forEach(this::publishAttendanceRecordedEvent);
+        clockInJournal.recordCheckpoint(entries.get(entries.size() - 1).sequence());
+        log.info("出勤打刻をまとめて登録しました: 件数={}, 通番={}..{}",
+            records.size(), entries.get(0).sequence(), entries.get(entries.size() - 1).sequence());
+        return records;
+    }
+
     @Transactional
     public AttendanceRecord updateActualTimes(Long recordId, LocalDateTime clockIn, LocalDateTime clockOut) {
         AttendanceRecord record = getRecord(recordId);
         record.updateActualTimes(clockIn, clockOut);
-        AttendanceRecord saved = attendanceRecordRepository.save(record);
+        // 更新日時（@PreUpdate）をイベントに載せるため、発行前にフラッシュする
+        AttendanceRecord saved = attendanceRecordRepository.saveAndFlush(record);
         publishAttendanceRecordedEvent(saved);
         log.info("勤怠記録の実績を更新しました: recordId={}", recordId);
         return saved;
@@ -49,7 +104,8 @@ public class AttendanceRecordService {
         AttendanceRecord record = getRecord(recordId);
         record.markAsLeave();
         record.setNote(note);
-        AttendanceRecord saved = attendanceRecordRepository.save(record);
+        // 更新日時（@PreUpdate）をイベントに載せるため、発行前にフラッシュする
+        AttendanceRecord saved = attendanceRecordRepository.saveAndFlush(record);
         publishAttendanceRecordedEvent(saved);
         log.info("勤怠記録を有給扱いに更新しました: recordId={}", recordId);
         return saved;
@@ -66,6 +122,32 @@ public class AttendanceRecordService {
         return attendanceRecordRepository.findAll();
     }
 
+    /**
+     * 勤務日 + id のキーセットページングで勤怠記録を取得
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<AttendanceRecord> getRecordsPage(String cursor, int limit) {
+        return KeysetPage.fetch(cursor, limit, LocalDate::parse,
+            attendanceRecordRepository::findFirstPage, attendanceRecordRepository::findPageAfter,
+            record -> new KeysetCursor(record.getWorkDate().toString(), record.getId()));
+    }
+
+    /**
+     * 全勤怠記録を id 順に1件ずつ consumer に渡す（{@link KeysetScan}）
+     */
+    public void streamRecords(Consumer<AttendanceRecord> consumer) {
+        KeysetScan.forEachById(entityManager,
+            attendanceRecordRepository::findByIdGreaterThanOrderByIdAsc, AttendanceRecord::getId, consumer);
+    }
+
+    /**
+     * 全勤怠記録の現在の状態を、発行時と同じ {@link AttendanceRecordedEvent} として id 順に consumer に渡す
+     * （イベントから作る集計の作り直し用。イベントは発行しない）
+     */
+    public void streamRecordedEvents(Consumer<AttendanceRecordedEvent> consumer) {
+        streamRecords(record -> consumer.accept(toRecordedEvent(record)));
+    }
+
     @Transactional(readOnly = true)
     public List<AttendanceRecord> getRecordsForEmployee(String employeeId) {
         return attendanceRecordRepository.findByEmployeeId(employeeId);
@@ -76,24 +158,31 @@ public class AttendanceRecordService {
         return attendanceRecordRepository.findByEmployeeIdAndWorkDateBetween(employeeId, start, end);
     }
 
-    @ApplicationModuleListener
+    @OrderedModuleListener(key = "organizationId")
     public void handleManagementSettingUpdated(ManagementSettingUpdatedEvent event) {
         ManagementSettingSnapshot snapshot = new ManagementSettingSnapshot(
             event.getSettingId(),
             event.getOrganizationId(),
             event.getStandardStartTime(),
             event.getStandardEndTime(),
-            event.getBreakMinutes(),
+            event.getBreakMinutes() != null ? event.getBreakMinutes() : 0,
             event.isOvertimeAllowed(),
             event.getEffectiveFrom()
         );
-        latestManagementSetting.set(snapshot);
-        log.info("管理設定スナップショットを更新しました: organizationId={}", event.getOrganizationId());
+        managementSettingTimeline.apply(snapshot);
+        log.info("管理設定スナップショットを更新しました: organizationId={}, effectiveFrom={}",
+            event.getOrganizationId(), event.getEffectiveFrom());
     }
 
     private void publishAttendanceRecordedEvent(AttendanceRecord record) {
-        AttendanceRecordedEvent event = AttendanceRecordedEvent.from(record, latestManagementSetting.get());
+        AttendanceRecordedEvent event = toRecordedEvent(record);
         eventPublisher.publishEvent(event);
         log.info("AttendanceRecordedEventを発行しました: {}", event);
     }
+
+    private AttendanceRecordedEvent toRecordedEvent(AttendanceRecord record) {
+        ManagementSettingSnapshot snapshot =
+            managementSettingTimeline.resolve(record.getOrganizationId(), record.getWorkDate());
+        return AttendanceRecordedEvent.from(record, snapshot);
+    }
 }
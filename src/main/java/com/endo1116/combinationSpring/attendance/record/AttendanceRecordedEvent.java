@@ -32,6 +32,10 @@ public class AttendanceRecordedEvent implements Serializable {
     private Integer breakMinutes;
     private Boolean overtimeAllowed;
     private String note;
+    /**
+     * 勤怠記録の更新日時（同じ記録のイベントの前後関係の判定に使う）
+     */
+    private LocalDateTime updatedAt;
 
     public static AttendanceRecordedEvent from(
         AttendanceRecord record,
@@ -51,7 +55,8 @@ public class AttendanceRecordedEvent implements Serializable {
             snapshot.standardEndTime(),
             snapshot.breakMinutes(),
             snapshot.overtimeAllowed(),
-            record.getNote()
+            record.getNote(),
+            record.getUpdatedAt()
         );
     }
 }
@@ -0,0 +1,78 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link AttendanceRecordedEvent} のバイナリスキーマ
+ * 
+ * バージョン2: recordId, employeeId, workDate, clockIn, clockOut, workedMinutes, status, managementSettingId, organizationId, standardStartTime, standardEndTime, breakMinutes, overtimeAllowed, note, updatedAt の順
+ * バージョン1: updatedAt なし（null として読む）
+ */
+@Component
+public class AttendanceRecordedEventSchema implements EventSchema<AttendanceRecordedEvent> {
+
+    static final int SCHEMA_ID = 10;
+    static final int VERSION = 2;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<AttendanceRecordedEvent> type() {
+        return AttendanceRecordedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(AttendanceRecordedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getRecordId());
+        writeString(out, event.getEmployeeId());
+        writeDate(out, event.getWorkDate());
+        writeDateTime(out, event.getClockIn());
+        writeDateTime(out, event.getClockOut());
+        writeInt(out, event.getWorkedMinutes());
+        writeEnum(out, event.getStatus());
+        writeLong(out, event.getManagementSettingId());
+        writeString(out, event.getOrganizationId());
+        writeTime(out, event.getStandardStartTime());
+        writeTime(out, event.getStandardEndTime());
+        writeInt(out, event.getBreakMinutes());
+        writeBoolean(out, event.getOvertimeAllowed());
+        writeString(out, event.getNote());
+        writeDateTime(out, event.getUpdatedAt());
+    }
+
+    @Override
+    public AttendanceRecordedEvent read(DataInputStream in, int version) throws IOException {
+        return new AttendanceRecordedEvent(
+            readLong(in),
+            readString(in),
+            readDate(in),
+            readDateTime(in),
+            readDateTime(in),
+            readInt(in),
+            readEnum(in, AttendanceStatus.class),
+            readLong(in),
+            readString(in),
+            readTime(in),
+            readTime(in),
+            readInt(in),
+            readBoolean(in),
+            readString(in),
+            version >= 2 ? readDateTime(in) : null
+        );
+    }
+}
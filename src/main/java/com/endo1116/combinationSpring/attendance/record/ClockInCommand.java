@@ -0,0 +1,15 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 出勤打刻の受付内容
+ */
+public record ClockInCommand(
+    String employeeId,
+    String organizationId,
+    LocalDate workDate,
+    LocalDateTime clockIn,
+    String note
+) {}
@@ -0,0 +1,29 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * ジャーナルに追記された出勤打刻
+ * 
+ * @param sequence ジャーナルの通番（再起動をまたいで単調増加）
+ */
+public record ClockInEntry(
+    long sequence,
+    String employeeId,
+    String organizationId,
+    LocalDate workDate,
+    LocalDateTime clockIn,
+    String note
+) {
+    static ClockInEntry of(long sequence, ClockInCommand command) {
+        return new ClockInEntry(
+            sequence,
+            command.employeeId(),
+            command.organizationId(),
+            command.workDate(),
+            command.clockIn(),
+            command.note()
+        );
+    }
+}
@@ -0,0 +1,463 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * 出勤打刻のジャーナル（ローカルの先行書き込みログ）
+ * 
+ * 受け付けた打刻をファイルに追記し、fsync 後に受付完了とする。
+ * 追記は専用スレッドがまとめて行い、同時に届いた打刻は1回の fsync を共有する（グループコミット）。
+ * 追記済みの打刻は {@link #drain} で {@link ClockInWriter} に渡し、DB に登録する。
+ * 
+ * レコード形式: ペイロード長（4バイト）+ CRC32C（4バイト）+ ペイロード（通番・社員ID・組織ID・勤務日・出勤時刻・備考）
+ * 
+ * DB に登録済みの通番は clock_in_journal_checkpoint にジャーナルの識別子ごと、登録と同じトランザクションで記録する。
+ * ジャーナルはノードごとにあるため、他のノードのチェックポイントで自分の未登録の打刻を読み飛ばさない。
+ * 起動時はジャーナルを先頭から1レコードずつ読み、チェックポイントより後の打刻を書き込み待ちに戻し、末尾の壊れたレコードは切り捨てる。
+ * すべての打刻が登録済みになった時点でジャーナルを空にする。打刻が途切れない間も、先頭の登録済みの部分が
+ * compact-threshold を超えたら、未登録の部分だけを一時ファイルに書き出してジャーナルと置き換える。
+ */
+@Component
+@EnableConfigurationProperties(ClockInProperties.class)
+@Slf4j
+public class ClockInJournal {
+
+    private static final int HEADER_LENGTH = 8;
+
+    private static final String CHECKPOINT_UPSERT_SQL = """
+        INSERT INTO clock_in_journal_checkpoint (journal_id, last_sequence) VALUES (?, ?)
+        ON CONFLICT(journal_id) DO UPDATE SET last_sequence = excluded.last_sequence
+        """;
+
+    private static final String DEAD_LETTER_SQL = """
+        INSERT OR IGNORE INTO clock_in_dead_letter
+            (journal_id, sequence, employee_id, organization_id, work_date, clock_in, note, reason, failed_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClockInProperties properties;
+    private final BlockingQueue<PendingAppend> appends;
+    private final BlockingQueue<ClockInEntry> pending = new LinkedBlockingQueue<>();
+
+    private String journalId;
+    private Path path;
+    private volatile FileChannel channel;
+    private Thread flusher;
+    private volatile boolean running;
+    /**
+     * 最後に追記した通番（追記スレッドのみが更新）
+     */
+    private volatile long lastSequence;
+    private volatile long committedSequence;
+    /**
+     * 追記したまとめ（または復旧したレコード）ごとの最後の通番と終端位置（追記スレッドのみが使う）
+     */
+    private final Deque<Boundary> boundaries = new ArrayDeque<>();
+    /**
+     * ジャーナルの先頭から登録済みの打刻だけが続く位置（追記スレッドのみが使う）
+     */
+    private long committedEnd;
+
+    public ClockInJournal(JdbcTemplate jdbcTemplate, ClockInProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.appends = new ArrayBlockingQueue<>(Math.max(1, properties.getMaxPending()));
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        path = Path.of(properties.getJournalPath());
+        journalId = resolveJournalId(path);
+
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS clock_in_journal_checkpoint (
+                journal_id TEXT PRIMARY KEY,
+                last_sequence INTEGER NOT NULL
+            )
+            """);
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS clock_in_dead_letter (
+                journal_id TEXT NOT NULL,
+                sequence INTEGER NOT NULL,
+                employee_id TEXT,
+                organization_id TEXT,
+                work_date TEXT,
+                clock_in TEXT,
+                note TEXT,
+                reason TEXT,
+                failed_at TEXT NOT NULL,
+                PRIMARY KEY (journal_id, sequence)
+            )
+            """);
+        Long checkpoint = jdbcTemplate.query(
+            "SELECT last_sequence FROM clock_in_journal_checkpoint WHERE journal_id = ?",
+            rs -> rs.next() ? rs.getLong(1) : 0L, journalId);
+        committedSequence = checkpoint != null ? checkpoint : 0L;
+        lastSequence = committedSequence;
+
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int recovered = recover();
+
+        running = true;
+        flusher = Thread.ofPlatform().name("clock-in-journal").daemon(true).start(this::flushLoop);
+        log.info("出勤打刻のジャーナルを開きました: path={}, journalId={}, チェックポイント={}, 未登録の打刻={}",
+            path, journalId, committedSequence, recovered);
+    }
+
+    /**
+     * 打刻をジャーナルに追記する（fsync 後に完了する）
+     */
+    public CompletableFuture<ClockInEntry> append(ClockInCommand command) {
+        if (!running) {
+            throw new ClockInRejectedException("出勤打刻の受付を停止しています");
+        }
+        if (pending.size() >= properties.getMaxPending()) {
+            throw new ClockInRejectedException("出勤打刻の書き込み待ちが上限に達しました: " + pending.size());
+        }
+        PendingAppend request = new PendingAppend(command, new CompletableFuture<>());
+        if (!appends.offer(request)) {
+            throw new ClockInRejectedException("出勤打刻の追記待ちが上限に達しました");
+        }
+        return request.future();
+    }
+
+    /**
+     * 追記済みの打刻を通番順に最大 maxEntries 件取り出す
+     * 
+     * 1件目を最大1秒待ち、その後は maxDelay まで件数が揃うのを待つ。
+     */
+    public List<ClockInEntry> drain(int maxEntries, Duration maxDelay) throws InterruptedException {
+        List<ClockInEntry> batch = new ArrayList<>();
+        ClockInEntry first = pending.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < maxEntries) {
+            pending.drainTo(batch, maxEntries - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxEntries || remaining <= 0) {
+                break;
+            }
+            ClockInEntry next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * 登録済みの通番を記録する（登録と同じトランザクション内で呼ぶ）
+     */
+    public void recordCheckpoint(long sequence) {
+        jdbcTemplate.update(CHECKPOINT_UPSERT_SQL, journalId, sequence);
+    }
+
+    /**
+     * 登録できない打刻を clock_in_dead_letter に移し、その通番までを登録済みとして記録する
+     * 
+     * 移動は通番ごとに一度だけ記録されるため、チェックポイントの記録前に停止しても再実行できる。
+     */
+    public void deadLetter(ClockInEntry entry, String reason) {
+        jdbcTemplate.update(DEAD_LETTER_SQL,
+            journalId, entry.sequence(), entry.employeeId(), entry.organizationId(),
+            entry.workDate() != null ? entry.workDate().toString() : null,
+            entry.clockIn() != null ? entry.clockIn().toString() : null,
+            entry.note(), reason);
+        recordCheckpoint(entry.sequence());
+        committed(entry.sequence());
+    }
+
+    /**
+     * トランザクションのコミット後に、登録済みの通番を通知する
+     */
+    public void committed(long sequence) {
+        committedSequence = sequence;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("journalId", journalId);
+        stats.put("appendQueue", appends.size());
+        stats.put("pending", pending.size());
+        stats.put("lastSequence", lastSequence);
+        stats.put("committedSequence", committedSequence);
+        try {
+            stats.put("journalBytes", channel.size());
+        } catch (IOException e) {
+            stats.put("journalBytes", -1L);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        appends.forEach(request -> request.future().completeExceptionally(
+            new ClockInRejectedException("出勤打刻の受付を停止しました")));
+        channel.close();
+    }
+
+    private void flushLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (running || !appends.isEmpty()) {
+            try {
+                PendingAppend first = appends.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    compact();
+                    continue;
+                }
+                batch.add(first);
+                appends.drainTo(batch, properties.getGroupCommitSize() - 1);
+                write(batch);
+                compact();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("出勤打刻のジャーナルへの追記に失敗しました: 件数={}, 原因={}", batch.size(), e.getMessage());
+                batch.forEach(request -> request.future().completeExceptionally(
+                    new ClockInRejectedException("出勤打刻を記録できませんでした", e)));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingAppend> batch) throws IOException {
+        List<ClockInEntry> entries = new ArrayList<>(batch.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 96);
+        long sequence = lastSequence;
+        for (PendingAppend request : batch) {
+            ClockInEntry entry = ClockInEntry.of(++sequence, request.command());
+            entries.add(entry);
+            writeRecord(bytes, entry);
+        }
+
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (properties.isFsync()) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // 書きかけのレコードを残さない
+            channel.truncate(start);
+            channel.position(start);
+            throw e;
+        }
+
+        lastSequence = sequence;
+        boundaries.addLast(new Boundary(sequence, channel.position()));
+        pending.addAll(entries);
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(entries.get(i));
+        }
+    }
+
+    /**
+     * 登録済みの打刻をジャーナルから取り除く
+     * 
+     * すべて登録済みなら空にし、先頭の登録済みの部分が compact-threshold を超えていれば未登録の部分だけを書き直す。
+     */
+    private void compact() {
+        long committed = committedSequence;
+        while (!boundaries.isEmpty() && boundaries.peekFirst().sequence() <= committed) {
+            committedEnd = boundaries.pollFirst().end();
+        }
+        if (committedEnd == 0) {
+            return;
+        }
+        try {
+            if (boundaries.isEmpty()) {
+                channel.truncate(0);
+                channel.position(0);
+                if (properties.isFsync()) {
+                    channel.force(true);
+                }
+                committedEnd = 0;
+                log.debug("出勤打刻のジャーナルを空にしました: 通番={}", committed);
+            } else if (committedEnd >= properties.getCompactThreshold().toBytes()) {
+                rewriteTail();
+            }
+        } catch (IOException e) {
+            log.warn("出勤打刻のジャーナルを縮められませんでした: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 未登録の部分（committedEnd 以降）だけを一時ファイルに書き出し、ジャーナルと置き換える
+     * 
+     * 置き換えはファイルの移動で行うため、途中で停止しても元のジャーナルか書き直したジャーナルのどちらかが残る。
+     */
+    private void rewriteTail() throws IOException {
+        long removed = committedEnd;
+        long tail = channel.size() - removed;
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < tail) {
+                copied += channel.transferTo(removed + copied, tail - copied, out);
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        FileChannel previous = channel;
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(tail);
+        previous.close();
+
+        Deque<Boundary> shifted = new ArrayDeque<>(boundaries.size());
+        boundaries.forEach(boundary -> shifted.addLast(new Boundary(boundary.sequence(), boundary.end() - removed)));
+        boundaries.clear();
+        boundaries.addAll(shifted);
+        committedEnd = 0;
+        log.info("出勤打刻のジャーナルから登録済みの打刻を取り除きました: 削減={}バイト, 残り={}バイト", removed, tail);
+    }
+
+    /**
+     * ジャーナルを先頭から1レコードずつ読み、チェックポイントより後の打刻を書き込み待ちに戻す
+     */
+    private int recover() throws IOException {
+        long size = channel.size();
+        channel.position(0);
+        // チャネルを閉じないように、ストリームは閉じずに使い捨てる
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+
+        int recovered = 0;
+        long validEnd = 0;
+        while (size - validEnd >= HEADER_LENGTH) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length <= 0 || length > size - validEnd - HEADER_LENGTH) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            if (checksum(payload) != checksum) {
+                break;
+            }
+            ClockInEntry entry = readEntry(payload);
+            validEnd += HEADER_LENGTH + length;
+            lastSequence = Math.max(lastSequence, entry.sequence());
+            if (entry.sequence() > committedSequence) {
+                pending.add(entry);
+                boundaries.addLast(new Boundary(entry.sequence(), validEnd));
+                recovered++;
+            } else if (boundaries.isEmpty()) {
+                committedEnd = validEnd;
+            }
+        }
+        if (validEnd < size) {
+            log.warn("出勤打刻のジャーナル末尾の壊れたレコードを切り捨てます: {}バイト", size - validEnd);
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        return recovered;
+    }
+
+    private String resolveJournalId(Path path) {
+        if (properties.getJournalId() != null && !properties.getJournalId().isBlank()) {
+            return properties.getJournalId();
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + ":" + path.toAbsolutePath().normalize();
+    }
+
+    private static void writeRecord(ByteArrayOutputStream bytes, ClockInEntry entry) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(96);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeLong(entry.sequence());
+        writeString(payload, entry.employeeId());
+        writeString(payload, entry.organizationId());
+        writeDate(payload, entry.workDate());
+        writeDateTime(payload, entry.clockIn());
+        writeString(payload, entry.note());
+        payload.flush();
+
+        byte[] body = payloadBytes.toByteArray();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(body.length);
+        out.writeInt(checksum(body));
+        out.write(body);
+        out.flush();
+    }
+
+    private static ClockInEntry readEntry(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return new ClockInEntry(
+            in.readLong(),
+            readString(in),
+            readString(in),
+            readDate(in),
+            readDateTime(in),
+            readString(in)
+        );
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record PendingAppend(ClockInCommand command, CompletableFuture<ClockInEntry> future) {}
+
+    private record Boundary(long sequence, long end) {}
+}
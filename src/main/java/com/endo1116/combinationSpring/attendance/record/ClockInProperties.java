@@ -0,0 +1,64 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 出勤打刻の受付（ジャーナル + まとめ書き）の設定
+ */
+@Data
+@ConfigurationProperties(prefix = "attendance.clock-in")
+public class ClockInProperties {
+
+    /**
+     * 受け付けた打刻を追記するジャーナルファイル
+     */
+    private String journalPath = "./data/clock-in.journal";
+
+    /**
+     * ジャーナルの識別子（DB のチェックポイントはこの値ごとに記録する）
+     * 
+     * 未指定の場合はホスト名とジャーナルファイルの絶対パスから決める。
+     * ホスト名が再起動で変わる環境では、ノードごとに固定の値を指定する。
+     */
+    private String journalId;
+
+    /**
+     * 追記ごとに fsync する（false の場合は OS クラッシュ時に直近の打刻を失う可能性がある）
+     */
+    private boolean fsync = true;
+
+    /**
+     * 1回の fsync にまとめる最大件数
+     */
+    private int groupCommitSize = 512;
+
+    /**
+     * DB への書き込み待ちの上限（超えた受付は 503 で拒否する）
+     */
+    private int maxPending = 100_000;
+
+    /**
+     * 1トランザクションで登録する最大件数と、件数が揃うまで待つ最大時間
+     */
+    private int batchSize = 1000;
+
+    private Duration maxDelay = Duration.ofMillis(200);
+
+    /**
+     * バッチの登録を再試行する最大回数
+     * 
+     * 超えた場合は1件ずつ登録し直し、それでも登録できない打刻は clock_in_dead_letter に移して先へ進む。
+     */
+    private int maxAttempts = 8;
+
+    /**
+     * ジャーナルの先頭の登録済みの部分がこのサイズを超えたら、未登録の部分だけを書き直す
+     * 
+     * 打刻が途切れずジャーナルを空にできない間も、ファイルが際限なく大きくならないようにする。
+     */
+    private DataSize compactThreshold = DataSize.ofMegabytes(64);
+}
@@ -0,0 +1,25 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 出勤打刻の受付結果（ジャーナルへの記録済み・DB への登録は非同期）
+ */
+public record ClockInReceipt(
+    long sequence,
+    String employeeId,
+    LocalDate workDate,
+    LocalDateTime clockIn,
+    LocalDateTime acceptedAt
+) {
+    static ClockInReceipt from(ClockInEntry entry) {
+        return new ClockInReceipt(
+            entry.sequence(),
+            entry.employeeId(),
+            entry.workDate(),
+            entry.clockIn(),
+            LocalDateTime.now()
+        );
+    }
+}
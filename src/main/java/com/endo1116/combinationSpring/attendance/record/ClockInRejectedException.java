@@ -0,0 +1,19 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 出勤打刻を受け付けられない場合の例外（書き込み待ちが上限に達した・停止中）
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ClockInRejectedException extends IllegalStateException {
+
+    public ClockInRejectedException(String message) {
+        super(message);
+    }
+
+    public ClockInRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,154 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ジャーナルに記録された出勤打刻を DB にまとめて登録する（ライトビハインド）
+ * 
+ * 専用スレッドが batchSize 件または maxDelay ごとに打刻を取り出し、1トランザクションで登録する。
+ * 登録に失敗したバッチは同じ内容で再試行する（間隔は1秒から倍々で最大30秒）。
+ * maxAttempts 回失敗したバッチは1件ずつ登録し直し、単独でも登録できない打刻は
+ * {@link ClockInJournal#deadLetter} で退避して、後続の打刻を止めないようにする。
+ * 退避自体に失敗する場合（DB に接続できない場合など）は、退避できるまで再試行を続ける。
+ * 管理設定のタイムラインを参照するため、起動完了イベントの最後に開始する。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ClockInWriter {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final ClockInJournal journal;
+    private final AttendanceRecordService attendanceRecordService;
+    private final ClockInProperties properties;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("clock-in-writer").daemon(true).start(this::writeLoop);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            // 登録中のバッチはトランザクションを完了させてから止める
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            List<ClockInEntry> batch;
+            try {
+                batch = journal.drain(properties.getBatchSize(), properties.getMaxDelay());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                writeWithRetry(batch);
+            }
+        }
+    }
+
+    private void writeWithRetry(List<ClockInEntry> batch) {
+        Duration backoff = INITIAL_BACKOFF;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                attendanceRecordService.applyClockIns(batch);
+                journal.committed(batch.get(batch.size() - 1).sequence());
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    // 未登録の打刻は次回起動時にジャーナルから再登録する
+                    log.warn("停止中のため出勤打刻の登録を中断しました: 件数={}", batch.size());
+                    return;
+                }
+                if (attempt >= properties.getMaxAttempts()) {
+                    log.error("出勤打刻の登録が{}回失敗したため、1件ずつ登録し直します: 件数={}, 原因={}",
+                        attempt, batch.size(), e.getMessage());
+                    applyIndividually(batch);
+                    return;
+                }
+                log.error("出勤打刻の登録に失敗しました。{}秒後に再試行します: 件数={}, 原因={}",
+                    backoff.toSeconds(), batch.size(), e.getMessage());
+                if (!sleep(backoff)) {
+                    return;
+                }
+                backoff = nextBackoff(backoff);
+            }
+        }
+    }
+
+    private void applyIndividually(List<ClockInEntry> batch) {
+        for (ClockInEntry entry : batch) {
+            if (!applyOrDeadLetter(entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 打刻を単独で登録し、登録できなければ退避する
+     * 
+     * 退避にも失敗した場合（DB に接続できない場合など）は、登録か退避ができるまで再試行する。
+     * 停止した場合は false を返し、残りの打刻は次回起動時にジャーナルから再登録する。
+     */
+    private boolean applyOrDeadLetter(ClockInEntry entry) {
+        Duration backoff = INITIAL_BACKOFF;
+        while (running) {
+            try {
+                attendanceRecordService.applyClockIns(List.of(entry));
+                journal.committed(entry.sequence());
+                return true;
+            } catch (RuntimeException e) {
+                try {
+                    journal.deadLetter(entry, e.getMessage());
+                    log.error("登録できない出勤打刻を退避しました: 通番={}, employeeId={}, 原因={}",
+                        entry.sequence(), entry.employeeId(), e.getMessage());
+                    return true;
+                } catch (RuntimeException deadLetterFailure) {
+                    log.error("出勤打刻を登録も退避もできませんでした。{}秒後に再試行します: 通番={}, 原因={}",
+                        backoff.toSeconds(), entry.sequence(), deadLetterFailure.getMessage());
+                }
+            }
+            if (!sleep(backoff)) {
+                return false;
+            }
+            backoff = nextBackoff(backoff);
+        }
+        return false;
+    }
+
+    private static boolean sleep(Duration backoff) {
+        try {
+            Thread.sleep(backoff);
+            return true;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Duration nextBackoff(Duration backoff) {
+        return backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+    }
+}
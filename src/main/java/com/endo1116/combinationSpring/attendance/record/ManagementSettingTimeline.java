@@ -0,0 +1,145 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import com.endo1116.combinationSpring.attendance.setting.AttendanceManagementSetting;
+import com.endo1116.combinationSpring.attendance.setting.ManagementSettingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 組織ごと・適用開始日ごとの管理設定のタイムライン
+ * 
+ * 組織IDごとに適用開始日をキーとする ConcurrentSkipListMap を持ち、勤務日時点で有効な設定を
+ * floorEntry（O(log n)）で DB を参照せずに求める。
+ * 
+ * - 起動時に全管理設定から構築する（全 Bean の初期化後、Web サーバーがリクエストを受け付ける前に構築し、
+ *   構築前の勤怠記録が固定の既定値で解決されないようにする）
+ * - 以降は ManagementSettingUpdatedEvent で差分を反映する（適用開始日の変更・組織の付け替えにも対応）
+ * - 適用開始日が未設定の設定は最初から有効とみなす
+ * 
+ * 組織IDの無い勤怠記録（組織IDの導入前からのクライアント）と、有効な設定が無い組織は次の順に解決する：
+ * 1. attendance.management-setting.default-organization-id に指定した組織
+ * 2. 全組織のうち勤務日時点で有効な設定のうち、適用開始日が最も新しいもの（同日なら設定IDの大きいもの）
+ * 3. 管理設定が1件も無い場合のみ、固定の既定値（9:00〜18:00）
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ManagementSettingTimeline implements SmartInitializingSingleton {
+
+    private static final Comparator<ManagementSettingSnapshot> LATEST_FIRST = Comparator
+        .comparing(ManagementSettingTimeline::effectiveFromOf)
+        .thenComparing(ManagementSettingSnapshot::settingId, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .reversed();
+
+    private final ManagementSettingService managementSettingService;
+
+    @Value("${attendance.management-setting.default-organization-id:}")
+    private String defaultOrganizationId;
+
+    private final Map<String, NavigableMap<LocalDate, ManagementSettingSnapshot>> timelines = new ConcurrentHashMap<>();
+    /**
+     * 設定IDごとの現在の登録位置（更新時に古い位置から取り除くため）
+     */
+    private final Map<Long, ManagementSettingSnapshot> bySettingId = new ConcurrentHashMap<>();
+
+    /**
+     * 全管理設定からタイムラインを構築する
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int loaded = 0;
+        for (AttendanceManagementSetting setting : managementSettingService.getAllSettings()) {
+            // 起動中にイベントで反映済みの設定はそちらを優先する
+            if (applyIfAbsent(toSnapshot(setting))) {
+                loaded++;
+            }
+        }
+        log.info("管理設定のタイムラインを構築しました: 組織数={}, 設定数={}", timelines.size(), loaded);
+    }
+
+    /**
+     * 組織の勤務日時点で有効な管理設定（組織が無い・有効な設定が無い場合はクラスのコメントの順に解決する）
+     */
+    public ManagementSettingSnapshot resolve(String organizationId, LocalDate workDate) {
+        LocalDate date = workDate != null ? workDate : LocalDate.now();
+        ManagementSettingSnapshot snapshot = organizationId != null ? effective(organizationId, date) : null;
+        if (snapshot == null && defaultOrganizationId != null && !defaultOrganizationId.isBlank()) {
+            snapshot = effective(defaultOrganizationId, date);
+        }
+        if (snapshot == null) {
+            snapshot = latestEffective(date);
+        }
+        return snapshot != null ? snapshot : ManagementSettingSnapshot.defaultSnapshot();
+    }
+
+    private ManagementSettingSnapshot effective(String organizationId, LocalDate date) {
+        NavigableMap<LocalDate, ManagementSettingSnapshot> timeline = timelines.get(organizationId);
+        if (timeline == null) {
+            return null;
+        }
+        Map.Entry<LocalDate, ManagementSettingSnapshot> entry = timeline.floorEntry(date);
+        return entry != null ? entry.getValue() : null;
+    }
+
+    private ManagementSettingSnapshot latestEffective(LocalDate date) {
+        ManagementSettingSnapshot latest = null;
+        for (NavigableMap<LocalDate, ManagementSettingSnapshot> timeline : timelines.values()) {
+            Map.Entry<LocalDate, ManagementSettingSnapshot> entry = timeline.floorEntry(date);
+            if (entry != null && (latest == null || LATEST_FIRST.compare(entry.getValue(), latest) < 0)) {
+                latest = entry.getValue();
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 設定の追加・更新を反映する
+     */
+    public synchronized void apply(ManagementSettingSnapshot snapshot) {
+        if (snapshot.settingId() != null) {
+            ManagementSettingSnapshot previous = bySettingId.put(snapshot.settingId(), snapshot);
+            if (previous != null) {
+                NavigableMap<LocalDate, ManagementSettingSnapshot> timeline = timelines.get(previous.organizationId());
+                if (timeline != null) {
+                    timeline.remove(effectiveFromOf(previous), previous);
+                }
+            }
+        }
+        timelines.computeIfAbsent(snapshot.organizationId(), key -> new ConcurrentSkipListMap<>())
+            .put(effectiveFromOf(snapshot), snapshot);
+    }
+
+    private synchronized boolean applyIfAbsent(ManagementSettingSnapshot snapshot) {
+        if (snapshot.settingId() != null && bySettingId.containsKey(snapshot.settingId())) {
+            return false;
+        }
+        apply(snapshot);
+        return true;
+    }
+
+    private static LocalDate effectiveFromOf(ManagementSettingSnapshot snapshot) {
+        return snapshot.effectiveFrom() != null ? snapshot.effectiveFrom() : LocalDate.MIN;
+    }
+
+    private static ManagementSettingSnapshot toSnapshot(AttendanceManagementSetting setting) {
+        return new ManagementSettingSnapshot(
+            setting.getId(),
+            setting.getOrganizationId(),
+            setting.getStandardStartTime(),
+            setting.getStandardEndTime(),
+            setting.getBreakMinutes() != null ? setting.getBreakMinutes() : 0,
+            Boolean.TRUE.equals(setting.getOvertimeAllowed()),
+            setting.getEffectiveFrom()
+        );
+    }
+}
@@ -1,10 +1,10 @@
 package com.endo1116.combinationSpring.attendance.setting;
 
 import com.endo1116.combinationSpring.attendance.application.AttendanceApplicationStatusChangedEvent;
+import com.endo1116.combinationSpring.config.OrderedModuleListener;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -47,7 +47,7 @@ public class ManagementSettingService {
         return attendanceManagementSettingRepository.findAll();
     }
 
-    @ApplicationModuleListener
+    @OrderedModuleListener(key = "applicationId")
     public void handleApplicationStatusChanged(AttendanceApplicationStatusChangedEvent event) {
         log.info("勤怠申請ステータス変更イベントを受信しました: applicationId={}, newStatus={}",
             event.getApplicationId(), event.getNewStatus());
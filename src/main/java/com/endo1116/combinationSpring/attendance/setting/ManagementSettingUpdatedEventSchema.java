@@ -0,0 +1,63 @@
+package com.endo1116.combinationSpring.attendance.setting;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link ManagementSettingUpdatedEvent} のバイナリスキーマ
+ * 
+ * バージョン1: settingId, organizationId, standardStartTime, standardEndTime, breakMinutes, overtimeAllowed, effectiveFrom, note の順
+ */
+@Component
+public class ManagementSettingUpdatedEventSchema implements EventSchema<ManagementSettingUpdatedEvent> {
+
+    static final int SCHEMA_ID = 11;
+    static final int VERSION = 1;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<ManagementSettingUpdatedEvent> type() {
+        return ManagementSettingUpdatedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(ManagementSettingUpdatedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getSettingId());
+        writeString(out, event.getOrganizationId());
+        writeTime(out, event.getStandardStartTime());
+        writeTime(out, event.getStandardEndTime());
+        writeInt(out, event.getBreakMinutes());
+        out.writeBoolean(event.isOvertimeAllowed());
+        writeDate(out, event.getEffectiveFrom());
+        writeString(out, event.getNote());
+    }
+
+    @Override
+    public ManagementSettingUpdatedEvent read(DataInputStream in, int version) throws IOException {
+        return new ManagementSettingUpdatedEvent(
+            readLong(in),
+            readString(in),
+            readTime(in),
+            readTime(in),
+            readInt(in),
+            in.readBoolean(),
+            readDate(in),
+            readString(in)
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * 社員・月ごとの勤怠集計行
+ * 
+ * id は "{社員ID}:{年月}"（例: E001:2024-04）。
+ * {@link AttendanceSummaryService} が勤怠記録イベントごとに差分を加算する。
+ */
+@Entity
+@Table(name = "attendance_monthly_summaries", indexes = {
+    @Index(name = "idx_attendance_monthly_summaries_month_employee", columnList = "yearMonth, employeeId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceMonthlySummary {
+
+    @Id
+    private String id;
+
+    private String employeeId;
+
+    /**
+     * 年月（yyyy-MM）
+     */
+    private String yearMonth;
+
+    /**
+     * 出勤日数（出勤時刻のある勤怠記録の件数）
+     */
+    private Integer workDays;
+
+    private Long workedMinutes;
+
+    /**
+     * 所定終業時刻より後の勤務時間（分）
+     */
+    private Long overtimeMinutes;
+
+    /**
+     * 所定始業時刻より後に出勤した日数
+     */
+    private Integer lateArrivals;
+
+    private Integer absences;
+
+    private Integer leaveDays;
+
+    private LocalDateTime updatedAt;
+
+    public static String idOf(String employeeId, String yearMonth) {
+        return employeeId + ":" + yearMonth;
+    }
+
+    static AttendanceMonthlySummary empty(String employeeId, YearMonth month) {
+        return new AttendanceMonthlySummary(
+            idOf(employeeId, month.toString()), employeeId, month.toString(), 0, 0L, 0L, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AttendanceMonthlySummaryRepository extends JpaRepository<AttendanceMonthlySummary, String> {
+
+    List<AttendanceMonthlySummary> findByYearMonthOrderByEmployeeId(String yearMonth);
+
+    List<AttendanceMonthlySummary> findByEmployeeIdAndYearMonthBetweenOrderByYearMonth(
+        String employeeId, String from, String to);
+}
@@ -0,0 +1,57 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 勤怠記録1件が月次集計に加算している値
+ * 
+ * 勤怠記録イベントは差分ではなく記録の最新状態を運ぶため、
+ * 前回加算した値を記録IDごとに保持し、更新時は差し引いてから加算し直す。
+ * 加算した時点の勤怠記録の更新日時も保持し、それより古いイベントは反映しない。
+ */
+@Entity
+@Table(name = "attendance_summary_contributions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceSummaryContribution {
+
+    @Id
+    private Long recordId;
+
+    private String employeeId;
+
+    private String yearMonth;
+
+    private Integer workDays;
+
+    private Long workedMinutes;
+
+    private Long overtimeMinutes;
+
+    private Integer lateArrivals;
+
+    private Integer absences;
+
+    private Integer leaveDays;
+
+    /**
+     * 加算した勤怠記録の更新日時（本項目の追加前に加算した行は null）
+     */
+    private LocalDateTime recordUpdatedAt;
+
+    /**
+     * other が同じ記録のより新しい状態から作られたもの（この値を置き換えてはいけない）か
+     */
+    boolean isOlderThan(AttendanceSummaryContribution other) {
+        return recordUpdatedAt != null && other != null && other.recordUpdatedAt != null
+            && recordUpdatedAt.isBefore(other.recordUpdatedAt);
+    }
+}
@@ -0,0 +1,42 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/attendance-summaries")
+@RequiredArgsConstructor
+public class AttendanceSummaryController {
+
+    private final AttendanceSummaryService attendanceSummaryService;
+
+    /**
+     * 指定月の全社員の集計（例: ?month=2024-04）
+     */
+    @GetMapping
+    public List<AttendanceMonthlySummary> list(@RequestParam YearMonth month) {
+        return attendanceSummaryService.getMonthlySummaries(month);
+    }
+
+    /**
+     * 社員の集計。month を指定した場合はその月、from / to を指定した場合は期間内の各月
+     */
+    @GetMapping("/{employeeId}")
+    public List<AttendanceMonthlySummary> get(
+        @PathVariable String employeeId,
+        @RequestParam(required = false) YearMonth month,
+        @RequestParam(required = false) YearMonth from,
+        @RequestParam(required = false) YearMonth to
+    ) {
+        if (month != null) {
+            return List.of(attendanceSummaryService.getMonthlySummary(employeeId, month));
+        }
+        if (from != null && to != null) {
+            return attendanceSummaryService.getMonthlySummaries(employeeId, from, to);
+        }
+        throw new IllegalArgumentException("month または from / to を指定してください");
+    }
+}
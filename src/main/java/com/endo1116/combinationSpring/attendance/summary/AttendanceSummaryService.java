@@ -0,0 +1,278 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import com.endo1116.combinationSpring.attendance.record.AttendanceRecordService;
+import com.endo1116.combinationSpring.attendance.record.AttendanceRecordedEvent;
+import com.endo1116.combinationSpring.attendance.record.AttendanceStatus;
+import com.endo1116.combinationSpring.config.OrderedModuleListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 社員・月ごとの勤怠集計（出勤日数・勤務時間・残業時間・遅刻・欠勤・有給）
+ * 
+ * - 勤怠記録イベントのコミット後に、記録1件分の値を attendance_monthly_summaries へ加算（UPSERT）する
+ * - 同じ記録の更新では前回加算した値（attendance_summary_contributions）を差し引いてから加算し直す
+ * - 同じ内容のイベントの再配信は差分が 0 になるため集計に影響しない
+ * - 加算済みの値より古い更新日時のイベント（再配信・順序の入れ替わり）は反映しない
+ * - 同じ社員のイベントは同じレーンで直列に処理するため、集計行の読み書きは競合しない
+ * 
+ * 月末集計は社員数分の集計行を読むだけで、attendance_records は走査しない。
+ * 本機能の導入前からある勤怠記録は、起動時に一度だけ現在の状態をイベントと同じ手順で反映する
+ * （attendance_summary_backfill に完了を記録する。反映済みの記録は差分が 0 になるため、途中で停止しても次回の起動時にやり直せる）。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AttendanceSummaryService {
+
+    private static final String SUMMARY_UPSERT_SQL = """
+        INSERT INTO attendance_monthly_summaries
+            (id, employee_id, year_month, work_days, worked_minutes, overtime_minutes,
+             late_arrivals, absences, leave_days, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(id) DO UPDATE SET
+            work_days = work_days + excluded.work_days,
+            worked_minutes = worked_minutes + excluded.worked_minutes,
+            overtime_minutes = overtime_minutes + excluded.overtime_minutes,
+            late_arrivals = late_arrivals + excluded.late_arrivals,
+            absences = absences + excluded.absences,
+            leave_days = leave_days + excluded.leave_days,
+            updated_at = excluded.updated_at
+        """;
+
+    private static final String CONTRIBUTION_UPSERT_SQL = """
+        INSERT INTO attendance_summary_contributions
+            (record_id, employee_id, year_month, work_days, worked_minutes, overtime_minutes,
+             late_arrivals, absences, leave_days, record_updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(record_id) DO UPDATE SET
+            employee_id = excluded.employee_id,
+            year_month = excluded.year_month,
+            work_days = excluded.work_days,
+            worked_minutes = excluded.worked_minutes,
+            overtime_minutes = excluded.overtime_minutes,
+            late_arrivals = excluded.late_arrivals,
+            absences = excluded.absences,
+            leave_days = excluded.leave_days,
+            record_updated_at = excluded.record_updated_at
+        """;
+
+    private static final String CONTRIBUTION_SELECT_SQL = """
+        SELECT record_id, employee_id, year_month, work_days, worked_minutes, overtime_minutes,
+               late_arrivals, absences, leave_days, record_updated_at
+        FROM attendance_summary_contributions
+        WHERE record_id = ?
+        """;
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final AttendanceMonthlySummaryRepository summaryRepository;
+    private final AttendanceRecordService attendanceRecordService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @OrderedModuleListener(key = "employeeId")
+    public void handleAttendanceRecordedEvent(AttendanceRecordedEvent event) {
+        if (event.getRecordId() == null || event.getEmployeeId() == null || event.getWorkDate() == null) {
+            return;
+        }
+        apply(event);
+    }
+
+    /**
+     * 既存の勤怠記録を集計に一度だけ反映する（完了済みなら何もしない）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void backfill() {
+        try {
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS attendance_summary_backfill (
+                    id INTEGER PRIMARY KEY CHECK (id = 1),
+                    completed_at TIMESTAMP NOT NULL
+                )
+                """);
+            Integer completed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attendance_summary_backfill", Integer.class);
+            if (completed != null && completed > 0) {
+                return;
+            }
+            List<AttendanceRecordedEvent> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+            int[] applied = {0};
+            attendanceRecordService.streamRecordedEvents(event -> {
+                batch.add(event);
+                if (batch.size() == BACKFILL_BATCH_SIZE) {
+                    applied[0] += applyBatch(batch);
+                }
+            });
+            applied[0] += applyBatch(batch);
+            jdbcTemplate.update("INSERT OR IGNORE INTO attendance_summary_backfill (id, completed_at) VALUES (1, ?)",
+                Timestamp.valueOf(LocalDateTime.now()));
+            log.info("既存の勤怠記録を勤怠集計に反映しました: 反映件数={}", applied[0]);
+        } catch (RuntimeException e) {
+            // 完了を記録していないため、次回の起動時に続きから（反映済みの記録は差分 0 で）やり直す
+            log.error("既存の勤怠記録を勤怠集計に反映できませんでした: {}", e.getMessage());
+        }
+    }
+
+    private int applyBatch(List<AttendanceRecordedEvent> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Integer applied = transactionTemplate.execute(status ->
+            (int) batch.stream().filter(this::apply).count());
+        batch.clear();
+        return applied != null ? applied : 0;
+    }
+
+    /**
+     * 勤怠記録1件の状態を集計に反映する
+     *
+     * @return 集計を変更した場合 true
+     */
+    private boolean apply(AttendanceRecordedEvent event) {
+        AttendanceSummaryContribution next = contributionOf(event);
+        AttendanceSummaryContribution previous = findContribution(event.getRecordId());
+        if (next.isOlderThan(previous)) {
+            log.debug("加算済みより古い勤怠記録イベントのため反映しません: recordId={}, updatedAt={}, 加算済み={}",
+                event.getRecordId(), next.getRecordUpdatedAt(), previous.getRecordUpdatedAt());
+            return false;
+        }
+        if (next.equals(previous)) {
+            log.debug("勤怠集計に変更はありません: recordId={}", event.getRecordId());
+            return false;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (previous != null) {
+            addToSummary(previous, -1, now);
+        }
+        addToSummary(next, 1, now);
+        jdbcTemplate.update(CONTRIBUTION_UPSERT_SQL,
+            next.getRecordId(),
+            next.getEmployeeId(),
+            next.getYearMonth(),
+            next.getWorkDays(),
+            next.getWorkedMinutes(),
+            next.getOvertimeMinutes(),
+            next.getLateArrivals(),
+            next.getAbsences(),
+            next.getLeaveDays(),
+            next.getRecordUpdatedAt() != null ? Timestamp.valueOf(next.getRecordUpdatedAt()) : null);
+        log.info("勤怠集計を更新しました: employeeId={}, yearMonth={}, recordId={}",
+            next.getEmployeeId(), next.getYearMonth(), next.getRecordId());
+        return true;
+    }
+
+    /**
+     * 指定月の全社員の集計（社員ID順）
+     */
+    @Transactional(readOnly = true)
+    public List<AttendanceMonthlySummary> getMonthlySummaries(YearMonth month) {
+        return summaryRepository.findByYearMonthOrderByEmployeeId(month.toString());
+    }
+
+    /**
+     * 社員の指定月の集計（勤怠記録が無い月はすべて 0）
+     */
+    @Transactional(readOnly = true)
+    public AttendanceMonthlySummary getMonthlySummary(String employeeId, YearMonth month) {
+        return summaryRepository.findById(AttendanceMonthlySummary.idOf(employeeId, month.toString()))
+            .orElseGet(() -> AttendanceMonthlySummary.empty(employeeId, month));
+    }
+
+    /**
+     * 社員の期間内の集計（集計済みの月のみ）
+     */
+    @Transactional(readOnly = true)
+    public List<AttendanceMonthlySummary> getMonthlySummaries(String employeeId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("開始月は終了月以前を指定してください");
+        }
+        return summaryRepository.findByEmployeeIdAndYearMonthBetweenOrderByYearMonth(
+            employeeId, from.toString(), to.toString());
+    }
+
+    private void addToSummary(AttendanceSummaryContribution contribution, int sign, Timestamp now) {
+        jdbcTemplate.update(SUMMARY_UPSERT_SQL,
+            AttendanceMonthlySummary.idOf(contribution.getEmployeeId(), contribution.getYearMonth()),
+            contribution.getEmployeeId(),
+            contribution.getYearMonth(),
+            sign * contribution.getWorkDays(),
+            sign * contribution.getWorkedMinutes(),
+            sign * contribution.getOvertimeMinutes(),
+            sign * contribution.getLateArrivals(),
+            sign * contribution.getAbsences(),
+            sign * contribution.getLeaveDays(),
+            now);
+    }
+
+    private AttendanceSummaryContribution findContribution(Long recordId) {
+        List<AttendanceSummaryContribution> found = jdbcTemplate.query(CONTRIBUTION_SELECT_SQL,
+            (rs, rowNum) -> new AttendanceSummaryContribution(
+                rs.getLong("record_id"),
+                rs.getString("employee_id"),
+                rs.getString("year_month"),
+                rs.getInt("work_days"),
+                rs.getLong("worked_minutes"),
+                rs.getLong("overtime_minutes"),
+                rs.getInt("late_arrivals"),
+                rs.getInt("absences"),
+                rs.getInt("leave_days"),
+                toLocalDateTime(rs.getTimestamp("record_updated_at"))
+            ),
+            recordId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * 勤怠記録1件が集計に加算する値
+     * 
+     * 残業・遅刻はイベントに添付された勤務日時点の管理設定（所定始業・終業時刻）と比較する。
+     */
+    static AttendanceSummaryContribution contributionOf(AttendanceRecordedEvent event) {
+        AttendanceStatus status = event.getStatus();
+        boolean absent = status == AttendanceStatus.ABSENT;
+        boolean leave = status == AttendanceStatus.LEAVE;
+        boolean worked = !absent && !leave && event.getClockIn() != null;
+
+        long overtimeMinutes = 0;
+        if (worked && event.getClockOut() != null && event.getStandardEndTime() != null) {
+            LocalDateTime standardEnd = event.getWorkDate().atTime(event.getStandardEndTime());
+            if (event.getClockOut().isAfter(standardEnd)) {
+                overtimeMinutes = Duration.between(standardEnd, event.getClockOut()).toMinutes();
+            }
+        }
+        boolean late = worked && event.getStandardStartTime() != null
+            && event.getClockIn().isAfter(event.getWorkDate().atTime(event.getStandardStartTime()));
+
+        return new AttendanceSummaryContribution(
+            event.getRecordId(),
+            event.getEmployeeId(),
+            YearMonth.from(event.getWorkDate()).toString(),
+            worked ? 1 : 0,
+            worked && event.getWorkedMinutes() != null ? event.getWorkedMinutes().longValue() : 0L,
+            overtimeMinutes,
+            late ? 1 : 0,
+            absent ? 1 : 0,
+            leave ? 1 : 0,
+            event.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Attendance Summary Domain Module
+ *
+ * 勤怠の月次集計ドメイン
+ * - 勤怠記録イベントから社員・月ごとの集計を差分更新
+ * - 月末集計を勤怠記録の走査なしで提供
+ */
+@org.springframework.modulith.ApplicationModule(
+    displayName = "Attendance Summary Domain",
+    allowedDependencies = {}
+)
+package com.endo1116.combinationSpring.attendance.summary;
@@ -0,0 +1,15 @@
+package com.endo1116.combinationSpring.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * クライアントから受け取ったページングのカーソルを解釈できない場合の例外
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String cursor, Throwable cause) {
+        super("カーソルが不正です: " + cursor, cause);
+    }
+}
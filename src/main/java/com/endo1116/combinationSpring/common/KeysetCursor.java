@@ -0,0 +1,41 @@
+package com.endo1116.combinationSpring.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * キーセットページングのカーソル
+ * 
+ * 直前のページ末尾行の「ソートキー + id」を保持し、URLセーフな Base64 文字列として受け渡す。
+ */
+public record KeysetCursor(String sortKey, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = (sortKey != null ? sortKey : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(raw.substring(0, separator), Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor, e);
+        }
+    }
+
+    /**
+     * ソートキーを検索条件の型へ変換する（変換できない場合は {@link InvalidCursorException}）
+     */
+    public <K> K sortKey(Function<String, K> parser) {
+        try {
+            return parser.apply(sortKey);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(encode(), e);
+        }
+    }
+}
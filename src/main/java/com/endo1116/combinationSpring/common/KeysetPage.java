@@ -0,0 +1,69 @@
+package com.endo1116.combinationSpring.common;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * キーセットページングの結果
+ * 
+ * @param items 取得した行
+ * @param nextCursor 次ページのカーソル（最終ページの場合は null）
+ */
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    /**
+     * 1ページの件数を 1〜{@link #MAX_LIMIT} に丸める
+     */
+    public static int clampLimit(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    /**
+     * カーソルの次から limit 件のページを取得する
+     *
+     * @param cursor 直前のページの nextCursor（先頭ページの場合は null）
+     * @param sortKeyParser カーソルのソートキーを検索条件の型へ変換する
+     * @param firstPage 先頭ページの検索
+     * @param pageAfter カーソル位置より後の検索
+     * @param cursorOf 行からカーソルを作成する
+     */
+    public static <K, T> KeysetPage<T> fetch(String cursor, int limit, Function<String, K> sortKeyParser,
+            Function<Pageable, List<T>> firstPage, PageAfter<K, T> pageAfter, Function<T, KeysetCursor> cursorOf) {
+        int pageSize = clampLimit(limit);
+        PageRequest fetch = PageRequest.ofSize(pageSize + 1);
+        List<T> fetched;
+        if (cursor == null) {
+            fetched = firstPage.apply(fetch);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            fetched = pageAfter.find(after.sortKey(sortKeyParser), after.id(), fetch);
+        }
+        return of(fetched, pageSize, cursorOf);
+    }
+
+    /**
+     * limit + 1 件取得した結果からページを組み立てる
+     */
+    public static <T> KeysetPage<T> of(List<T> fetched, int limit, Function<T, KeysetCursor> cursorOf) {
+        if (fetched.size() <= limit) {
+            return new KeysetPage<>(fetched, null);
+        }
+        List<T> items = List.copyOf(fetched.subList(0, limit));
+        return new KeysetPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * ソートキー + id より後の行を取得する検索
+     */
+    @FunctionalInterface
+    public interface PageAfter<K, T> {
+
+        List<T> find(K sortKey, Long id, Pageable pageable);
+    }
+}
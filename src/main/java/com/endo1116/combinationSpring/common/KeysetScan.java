@@ -0,0 +1,52 @@
+package com.endo1116.combinationSpring.common;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 全件を id 順に一定件数ずつ読み出して consumer に渡す
+ *
+ * 1回の読み取りは件数分の短いトランザクションで終わるため、
+ * 出力に時間がかかっても SQLite の読み取りトランザクションを保持し続けない。
+ * 渡し終えたエンティティは永続化コンテキストから切り離し、ヒープ使用量を一定に保つ。
+ * 呼び出し側ではトランザクションを開始しないこと。
+ */
+public final class KeysetScan {
+
+    public static final int CHUNK_SIZE = 500;
+
+    private KeysetScan() {
+    }
+
+    /**
+     * @param chunkAfter id が第1引数より大きい行を id 順に取得する検索
+     * @param idOf 行の id
+     */
+    public static <T> void forEachById(EntityManager entityManager, BiFunction<Long, Pageable, List<T>> chunkAfter,
+            Function<T, Long> idOf, Consumer<T> consumer) {
+        // リクエスト単位の EntityManager（open-in-view）がある場合だけ、読み出した行が残り続ける
+        boolean detach = TransactionSynchronizationManager.hasResource(entityManager.getEntityManagerFactory());
+        Pageable chunk = PageRequest.ofSize(CHUNK_SIZE);
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<T> rows = chunkAfter.apply(afterId, chunk);
+            for (T row : rows) {
+                consumer.accept(row);
+                if (detach) {
+                    entityManager.detach(row);
+                }
+            }
+            if (rows.size() < CHUNK_SIZE) {
+                return;
+            }
+            afterId = idOf.apply(rows.get(rows.size() - 1));
+        }
+    }
+}
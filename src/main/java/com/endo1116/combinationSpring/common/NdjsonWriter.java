@@ -0,0 +1,57 @@
+package com.endo1116.combinationSpring.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * NDJSON（改行区切りJSON）でのストリーミング出力
+ * 
+ * 行を1件ずつシリアライズして書き出すため、結果全体をメモリに保持しない。
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonWriter {
+
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 行を受け取るたびに出力ストリームへ書き出す Consumer を返す
+     */
+    public <T> Consumer<T> lines(OutputStream out) {
+        return row -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write(NEWLINE);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("NDJSONへの変換に失敗しました", e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * source に渡した Consumer へ行を流し込むストリーミングレスポンスを作成する
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> {
+            source.accept(lines(out));
+            out.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+}
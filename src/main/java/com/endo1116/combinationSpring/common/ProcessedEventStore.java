@@ -0,0 +1,228 @@
+package com.endo1116.combinationSpring.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 冪等なコンシューマのための処理済みイベントの記録
+ * 
+ * at-least-once で再配信されたイベント（プロデューサの再送・リバランス後の再 poll）を、
+ * コンシューマ名とイベントキーで判定して読み飛ばす。
+ * 
+ * 判定は3段階で行い、通常は DB を参照しない：
+ * 1. 直近のキーを保持する LRU（Caffeine）に有れば重複
+ * 2. Bloom フィルタに無ければ確実に新規
+ * 3. Bloom フィルタが陽性（古い重複か偽陽性）の場合のみ processed_events を参照する
+ * 
+ * processed_events はコンシューマ名・キー・処理日時のみの WITHOUT ROWID テーブルで、保持期間を過ぎた行は
+ * 定期的に削除する。Bloom フィルタは削除できないため、削除後に processed_events から作り直す（起動時も同様）。
+ * 
+ * Bloom フィルタはノードごとだが processed_events は共有のため、パーティションの割り当て後は
+ * {@link #mergeRecent()} で前の担当ノードが記録したキーを取り込んでから判定する。
+ */
+@Component
+@EnableConfigurationProperties(ProcessedEventStoreProperties.class)
+@Slf4j
+public class ProcessedEventStore {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO processed_events (consumer, event_key, processed_at) VALUES (?, ?, ?)
+        ON CONFLICT(consumer, event_key) DO UPDATE SET processed_at = excluded.processed_at
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProcessedEventStoreProperties properties;
+    private final Cache<String, Boolean> recentKeys;
+
+    private volatile BloomFilter filter;
+    /**
+     * Bloom フィルタの再構築中に記録されたキー（再構築中以外は null、this で同期）
+     */
+    private List<String> marksDuringRebuild;
+
+    /**
+     * 他のノードの記録を取り込む際に、最後の取り込みより前へさかのぼる時間（ノード間の時刻のずれを吸収する）
+     */
+    private static final long MERGE_OVERLAP_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    /**
+     * Bloom フィルタに processed_events を最後に取り込んだ時刻
+     */
+    private volatile long mergedAt;
+
+    private final LongAdder recentHits = new LongAdder();
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder storeLookups = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+
+    public ProcessedEventStore(JdbcTemplate jdbcTemplate, ProcessedEventStoreProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.recentKeys = Caffeine.newBuilder()
+            .maximumSize(properties.getLruSize())
+            .expireAfterWrite(properties.getRetention())
+            .build();
+    }
+
+    /**
+     * リスナーのコンテナが起動する前にテーブルと Bloom フィルタを準備する
+     */
+    @PostConstruct
+    void initialize() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS processed_events (
+                consumer TEXT NOT NULL,
+                event_key TEXT NOT NULL,
+                processed_at INTEGER NOT NULL,
+                PRIMARY KEY (consumer, event_key)
+            ) WITHOUT ROWID
+            """);
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_processed_events_processed_at ON processed_events (processed_at)");
+        rebuildFilter();
+    }
+
+    /**
+     * 保持期間内に処理済みのイベントか
+     */
+    public boolean isProcessed(String consumer, String key) {
+        String id = consumer + ':' + key;
+        if (recentKeys.getIfPresent(id) != null) {
+            recentHits.increment();
+            return true;
+        }
+        if (!filter.mightContain(id)) {
+            filterNegatives.increment();
+            return false;
+        }
+
+        storeLookups.increment();
+        Integer found = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM processed_events WHERE consumer = ? AND event_key = ? AND processed_at >= ?",
+            Integer.class, consumer, key, cutoffMillis());
+        if (found != null && found > 0) {
+            storeHits.increment();
+            recentKeys.put(id, Boolean.TRUE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * イベントを処理済みとして記録する（下流の処理が成功した後に呼ぶ）
+     */
+    public void markProcessed(String consumer, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        keys.forEach(key -> rows.add(new Object[] {consumer, key, now}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+
+        synchronized (this) {
+            for (String key : keys) {
+                String id = consumer + ':' + key;
+                filter.put(id);
+                recentKeys.put(id, Boolean.TRUE);
+                if (marksDuringRebuild != null) {
+                    marksDuringRebuild.add(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * 最後の取り込み以降に processed_events へ記録されたキーを Bloom フィルタに取り込む
+     * 
+     * リバランスで他のノードから引き継いだパーティションのキーは、このノードのフィルタに無いため、
+     * 割り当て直後（レコードを受け取る前）に呼ぶ。
+     */
+    public void mergeRecent() {
+        long start = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>();
+        jdbcTemplate.query("SELECT consumer, event_key FROM processed_events WHERE processed_at >= ?",
+            rs -> {
+                ids.add(rs.getString(1) + ':' + rs.getString(2));
+            },
+            Math.max(cutoffMillis(), mergedAt - MERGE_OVERLAP_MILLIS));
+        synchronized (this) {
+            for (String id : ids) {
+                filter.put(id);
+                if (marksDuringRebuild != null) {
+                    marksDuringRebuild.add(id);
+                }
+            }
+        }
+        mergedAt = start;
+        log.debug("他のノードが記録した処理済みイベントを取り込みました: 件数={}", ids.size());
+    }
+
+    /**
+     * 保持期間を過ぎたキーを削除し、Bloom フィルタを作り直す
+     */
+    @Scheduled(fixedDelayString = "${event.dedup.purge-interval-ms:3600000}",
+        initialDelayString = "${event.dedup.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?", cutoffMillis());
+            rebuildFilter();
+            log.info("期限切れの処理済みイベントを削除しました: 件数={}, 統計={}", deleted, stats());
+        } catch (RuntimeException e) {
+            log.error("処理済みイベントの削除に失敗しました: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("recentHits", recentHits.sum());
+        stats.put("filterNegatives", filterNegatives.sum());
+        stats.put("storeLookups", storeLookups.sum());
+        stats.put("storeHits", storeHits.sum());
+        stats.put("recentSize", recentKeys.estimatedSize());
+        return stats;
+    }
+
+    private void rebuildFilter() {
+        synchronized (this) {
+            marksDuringRebuild = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        BloomFilter rebuilt = new BloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+        try {
+            jdbcTemplate.query("SELECT consumer, event_key FROM processed_events WHERE processed_at >= ?",
+                rs -> {
+                    rebuilt.put(rs.getString(1) + ':' + rs.getString(2));
+                },
+                cutoffMillis());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                marksDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            marksDuringRebuild.forEach(rebuilt::put);
+            marksDuringRebuild = null;
+            filter = rebuilt;
+        }
+        mergedAt = start;
+    }
+
+    private long cutoffMillis() {
+        return System.currentTimeMillis() - properties.getRetention().toMillis();
+    }
+}
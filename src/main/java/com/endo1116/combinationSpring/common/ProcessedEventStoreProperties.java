@@ -0,0 +1,36 @@
+package com.endo1116.combinationSpring.common;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 処理済みイベントの重複排除ストアの設定
+ */
+@Data
+@ConfigurationProperties(prefix = "event.dedup")
+public class ProcessedEventStoreProperties {
+
+    /**
+     * 処理済みとして記憶する期間（これより古いイベントの再配信は新規として扱う）
+     */
+    private Duration retention = Duration.ofDays(3);
+
+    /**
+     * メモリ上の LRU に保持する最大キー数
+     */
+    private long lruSize = 100_000;
+
+    /**
+     * Bloom フィルタの想定キー数（保持期間内に処理するイベント数）と偽陽性率
+     */
+    private long expectedKeys = 1_000_000;
+
+    private double falsePositiveRate = 0.001;
+
+    /**
+     * 期限切れのキーの削除と Bloom フィルタの再構築の間隔（ミリ秒）
+     */
+    private long purgeIntervalMs = 3_600_000;
+}
@@ -0,0 +1,13 @@
+/**
+ * Common Module
+ * 
+ * 各ドメインから利用する共通部品
+ * - キーセットページング
+ * - NDJSON ストリーミング
+ * - 冪等なコンシューマのための処理済みイベントの記録
+ */
+@org.springframework.modulith.ApplicationModule(
+    displayName = "Common",
+    type = org.springframework.modulith.ApplicationModule.Type.OPEN
+)
+package com.endo1116.combinationSpring.common;
@@ -0,0 +1,80 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * {@link CacheValueCodec} を使うコンパクトなバイナリ形式のキャッシュ値シリアライザ
+ * 
+ * フォーマット: [マジックバイト 0xCB][スキーマバージョン 1バイト][コーデックのペイロード]
+ * 
+ * ローリングデプロイ中も動作するように：
+ * - マジックバイトで始まらないエントリ（切り替え前の JSON など）はフォールバックのシリアライザで読む
+ * - 自ノードより新しいバージョンのエントリはキャッシュミス（null）として扱い、DB から再取得させる
+ * - コーデックの対象外の値（NullValue など）はフォールバックのシリアライザで書く
+ */
+@Slf4j
+public class BinaryCacheValueSerializer<T> implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xCB;
+
+    private final CacheValueCodec<T> codec;
+    private final RedisSerializer<Object> fallback;
+
+    public BinaryCacheValueSerializer(CacheValueCodec<T> codec, RedisSerializer<Object> fallback) {
+        if (codec.version() < 1 || codec.version() > 255) {
+            throw new IllegalArgumentException("スキーマバージョンは1〜255で指定してください: " + codec.version());
+        }
+        this.codec = codec;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null || !codec.type().isInstance(value)) {
+            return fallback.serialize(value);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(codec.version());
+            codec.write(codec.type().cast(value), out);
+        } catch (IOException e) {
+            throw new SerializationException("キャッシュ値のシリアライズに失敗しました: " + codec.cacheName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 2 || bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        int version = bytes[1] & 0xFF;
+        if (version > codec.version()) {
+            log.debug("新しいスキーマバージョンのキャッシュ値のため無視します: cache={}, version={}",
+                codec.cacheName(), version);
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+            return codec.read(in, version);
+        } catch (IOException e) {
+            throw new SerializationException("キャッシュ値のデシリアライズに失敗しました: " + codec.cacheName(), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return Object.class;
+    }
+}
@@ -0,0 +1,22 @@
+package com.endo1116.combinationSpring.config;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 複数エントリを1往復でまとめて読み書きできるキャッシュ
+ */
+public interface BulkCache {
+
+    /**
+     * 複数キーをまとめて読み込む
+     * 
+     * @return キャッシュに存在したエントリ（存在しないキーは含まない）
+     */
+    Map<Object, Object> getAll(Collection<?> keys);
+
+    /**
+     * 複数エントリをパイプラインでまとめて書き込む
+     */
+    void putAll(Map<?, ?> entries);
+}
@@ -0,0 +1,22 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * キャッシュ値のバイナリコーデック設定
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.binary-codec")
+public class CacheCodecProperties {
+
+    /**
+     * JSON の代わりにバイナリコーデックで保存するキャッシュ名
+     * （対応する {@link CacheValueCodec} Bean が無いキャッシュは JSON のまま）
+     * 既定は空で、全ノードがバイナリ形式を読めるようになってから指定する
+     */
+    private List<String> enabledCaches = new ArrayList<>();
+}
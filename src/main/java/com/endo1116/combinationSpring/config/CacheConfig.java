@@ -1,5 +1,9 @@
 package com.endo1116.combinationSpring.config;
 
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,9 +12,12 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Redis キャッシュ設定
@@ -18,31 +25,71 @@ import java.time.Duration;
  * キャッシュの使用例：
  * - 商品情報のキャッシュ（頻繁に読み取られるデータ）
  * - 注文統計のキャッシュ
+ * 
+ * cache.near.caches に指定したキャッシュは、Redis の前段にローカルL1を置いた2層構成になる
+ * （L1 はサイズ上限で追い出し、更新・削除時は Redis Pub/Sub で他ノードの L1 を無効化）
+ * 
+ * cache.binary-codec.enabled-caches に指定したキャッシュは、対応する {@link CacheValueCodec} Bean が
+ * あれば JSON の代わりにコンパクトなバイナリ形式で保存する
+ * 
+ * cache.load.caches.{キャッシュ名} でミス時のロードをキャッシュごとに制御する
+ * （single-flight によるロードの集約、XFetch による TTL 満了前のバックグラウンド再ロード）
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties({NearCacheProperties.class, CacheCodecProperties.class, CacheLoadProperties.class})
 public class CacheConfig {
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            RedissonClient redissonClient,
+            NearCacheProperties nearCacheProperties,
+            CacheCodecProperties codecProperties,
+            CacheLoadProperties loadProperties,
+            ObjectProvider<CacheValueCodec<?>> codecs) {
+        // LocalDateTime を含むエンティティを JSON で保存できるように JavaTimeModule を登録する
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        jsonSerializer.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
             .entryTtl(Duration.ofMinutes(10)) // デフォルトTTL: 10分
             .serializeKeysWith(
                 RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
             )
             .serializeValuesWith(
-                RedisSerializationContext.SerializationPair.fromSerializer(
-                    new GenericJackson2JsonRedisSerializer()
-                )
+                RedisSerializationContext.SerializationPair.fromSerializer(jsonSerializer)
             );
 
-        return RedisCacheManager.builder(connectionFactory)
+        Map<String, CacheValueCodec<?>> enabledCodecs = new HashMap<>();
+        codecs.orderedStream()
+            .filter(codec -> codecProperties.getEnabledCaches().contains(codec.cacheName()))
+            .forEach(codec -> enabledCodecs.put(codec.cacheName(), codec));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(config)
             .withCacheConfiguration("products", 
-                config.entryTtl(Duration.ofMinutes(30))) // 商品キャッシュは30分
+                withCodec(config.entryTtl(Duration.ofMinutes(30)), enabledCodecs.get("products"), jsonSerializer)) // 商品キャッシュは30分
             .withCacheConfiguration("orderStats", 
-                config.entryTtl(Duration.ofMinutes(5)))  // 統計は5分
+                withCodec(config.entryTtl(Duration.ofMinutes(5)), enabledCodecs.get("orderStats"), jsonSerializer))  // 統計は5分
             .build();
+        redisCacheManager.afterPropertiesSet();
+
+        CacheInvalidationPublisher invalidationPublisher = new CacheInvalidationPublisher(
+            redissonClient, nearCacheProperties.getInvalidationTopic());
+        return new TwoTierCacheManager(
+            redisCacheManager, connectionFactory, nearCacheProperties, invalidationPublisher, loadProperties);
+    }
+
+    private static RedisCacheConfiguration withCodec(
+            RedisCacheConfiguration config, CacheValueCodec<?> codec, RedisSerializer<Object> fallback) {
+        if (codec == null) {
+            return config;
+        }
+        return config.serializeValuesWith(
+            RedisSerializationContext.SerializationPair.fromSerializer(
+                new BinaryCacheValueSerializer<>(codec, fallback)
+            )
+        );
     }
 }
 
@@ -0,0 +1,66 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Redis Pub/Sub によるノード間の L1 キャッシュ無効化
+ * 
+ * メッセージ形式: {送信元ノードID}\n{キャッシュ名}\n{キー1}\n{キー2}...（キーがない場合はキャッシュ全体をクリア）
+ * 自ノードが送信したメッセージは無視する。
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private static final String SEPARATOR = "\n";
+    private static final int MAX_KEYS_PER_MESSAGE = 1000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RTopic topic;
+
+    public CacheInvalidationPublisher(RedissonClient redissonClient, String topicName) {
+        this.topic = redissonClient.getTopic(topicName, StringCodec.INSTANCE);
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        topic.publishAsync(nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    /**
+     * 複数キーの無効化をまとめて通知する（{@value #MAX_KEYS_PER_MESSAGE} キーごとに1メッセージ）
+     */
+    public void publishEvict(String cacheName, List<String> keys) {
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_MESSAGE) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_MESSAGE, keys.size()));
+            topic.publishAsync(nodeId + SEPARATOR + cacheName + SEPARATOR + String.join(SEPARATOR, chunk));
+        }
+    }
+
+    public void publishClear(String cacheName) {
+        topic.publishAsync(nodeId + SEPARATOR + cacheName);
+    }
+
+    /**
+     * 他ノードからの無効化メッセージを購読する
+     * 
+     * @param handler (キャッシュ名, キー一覧) を受け取るハンドラ（キー一覧が空の場合は全体クリア）
+     */
+    public void subscribe(BiConsumer<String, List<String>> handler) {
+        topic.addListener(String.class, (channel, message) -> {
+            String[] parts = message.split(SEPARATOR);
+            if (parts.length < 2 || nodeId.equals(parts[0])) {
+                return;
+            }
+            List<String> keys = Arrays.asList(parts).subList(2, parts.length);
+            log.debug("L1キャッシュ無効化メッセージを受信しました: cache={}, keys={}", parts[1], keys.size());
+            handler.accept(parts[1], keys);
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * キャッシュミス時のロード制御（キャッシュスタンピード対策）の設定
+ * 
+ * cache.load.caches.{キャッシュ名}.* でキャッシュごとに指定する。
+ * 2層キャッシュ（cache.near.caches）かつ @Cacheable(sync = true) の読み込みに適用される。
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.load")
+public class CacheLoadProperties {
+
+    private Map<String, Policy> caches = new HashMap<>();
+
+    public Policy policyFor(String cacheName) {
+        return caches.getOrDefault(cacheName, new Policy());
+    }
+
+    @Data
+    public static class Policy {
+
+        /**
+         * 同一キーのロードをノード内で1つにまとめ、他の呼び出しはその結果を待つ
+         */
+        private boolean singleFlight = true;
+
+        /**
+         * 確率的早期リフレッシュ（XFetch）の係数。0 以下で無効。
+         * 値を大きくするほど TTL 満了より早い段階でバックグラウンド更新されやすくなる
+         */
+        private double earlyRefreshBeta = 0;
+    }
+}
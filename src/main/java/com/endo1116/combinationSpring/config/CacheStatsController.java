@@ -0,0 +1,24 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 2層キャッシュの階層別ヒット・ミス数を参照するエンドポイント
+ */
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final TwoTierCacheManager cacheManager;
+
+    @GetMapping("/stats")
+    public Map<String, Map<String, Long>> stats() {
+        return cacheManager.stats();
+    }
+}
@@ -0,0 +1,39 @@
+package com.endo1116.combinationSpring.config;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * キャッシュ値のバイナリコーデック
+ * 
+ * 各モジュールがキャッシュするエンティティごとに Bean として登録する。
+ * cache.binary-codec.enabled-caches に含まれるキャッシュは、JSON の代わりにこのコーデックで
+ * シリアライズされる（{@link BinaryCacheValueSerializer}）。
+ * 
+ * フィールド構成を変更する場合は {@link #version()} を上げ、{@link #read} で旧バージョンも読めるようにする。
+ */
+public interface CacheValueCodec<T> {
+
+    /**
+     * 対象のキャッシュ名
+     */
+    String cacheName();
+
+    /**
+     * 対象の値の型
+     */
+    Class<T> type();
+
+    /**
+     * 書き込むスキーマバージョン（1〜255）
+     */
+    int version();
+
+    void write(T value, DataOutputStream out) throws IOException;
+
+    /**
+     * @param version エントリを書き込んだ側のスキーマバージョン（{@link #version()} 以下）
+     */
+    T read(DataInputStream in, int version) throws IOException;
+}
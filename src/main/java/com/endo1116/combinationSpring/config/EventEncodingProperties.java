@@ -0,0 +1,24 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 外部化イベントの Kafka 上の形式
+ * 
+ * 受信側は形式に関わらず JSON・バイナリの両方を読めるため、移行時は
+ * すべての受信側をデプロイしてから送信側の format を BINARY に切り替える。
+ */
+@Data
+@ConfigurationProperties(prefix = "kafka.event-encoding")
+public class EventEncodingProperties {
+
+    /**
+     * 送信時の形式（JSON / BINARY）。BINARY でもスキーマ未登録のイベントは JSON で送信する
+     */
+    private Format format = Format.JSON;
+
+    public enum Format {
+        JSON, BINARY
+    }
+}
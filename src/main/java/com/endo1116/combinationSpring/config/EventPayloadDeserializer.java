@@ -0,0 +1,52 @@
+package com.endo1116.combinationSpring.config;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 外部化イベントの値のデシリアライザ
+ * 
+ * 先頭がマジックバイトのペイロードは {@link EventSchemaRegistry} で、それ以外は JSON として読む。
+ * JSON の型ヘッダは spring.json.trusted.packages に含まれるパッケージのみ受け付ける。
+ */
+public class EventPayloadDeserializer implements Deserializer<Object> {
+
+    private final EventSchemaRegistry registry;
+    private final JsonDeserializer<Object> jsonDeserializer = new JsonDeserializer<>();
+
+    public EventPayloadDeserializer(EventSchemaRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonDeserializer.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (EventSchemaRegistry.isBinary(data)) {
+            try {
+                return registry.decode(data);
+            } catch (IOException | RuntimeException e) {
+                throw new SerializationException("イベントのバイナリ読み込みに失敗しました: topic=" + topic, e);
+            }
+        }
+        return headers != null ? jsonDeserializer.deserialize(topic, headers, data) : jsonDeserializer.deserialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonDeserializer.close();
+    }
+}
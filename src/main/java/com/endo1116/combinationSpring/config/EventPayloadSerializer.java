@@ -0,0 +1,54 @@
+package com.endo1116.combinationSpring.config;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 外部化イベントの値のシリアライザ
+ * 
+ * BINARY 形式でスキーマ登録済みのイベントは {@link EventSchemaRegistry} で、それ以外は JSON でシリアライズする。
+ * バイナリのペイロードには型ヘッダ（__TypeId__）を付けない（型はスキーマIDで決まる）。
+ */
+public class EventPayloadSerializer implements Serializer<Object> {
+
+    private final EventSchemaRegistry registry;
+    private final EventEncodingProperties.Format format;
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    public EventPayloadSerializer(EventSchemaRegistry registry, EventEncodingProperties.Format format) {
+        this.registry = registry;
+        this.format = format;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonSerializer.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data != null && format == EventEncodingProperties.Format.BINARY && registry.supports(data.getClass())) {
+            try {
+                return registry.encode(data);
+            } catch (IOException e) {
+                throw new SerializationException("イベントのバイナリ変換に失敗しました: " + data.getClass().getName(), e);
+            }
+        }
+        return headers != null ? jsonSerializer.serialize(topic, headers, data) : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,43 @@
+package com.endo1116.combinationSpring.config;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * 外部化イベントのバイナリスキーマ
+ * 
+ * 各モジュールが Kafka に外部化するイベントごとに Bean として登録し、{@link EventSchemaRegistry} に集約する。
+ * kafka.event-encoding.format=BINARY の場合、登録済みのイベントは JSON の代わりにこのスキーマで
+ * シリアライズされる（{@link EventPayloadSerializer}）。
+ * 
+ * 互換性のルール：
+ * - {@link #schemaId()} はイベント型ごとに固定し、再利用しない
+ * - フィールドは末尾への追加のみ行い、追加時は {@link #version()} を上げる（削除・並び替え・型変更は不可）
+ * - 後方互換：{@link #read} は旧バージョンで書かれたペイロードも読めるようにする（追加フィールドは version で分岐）
+ * - 前方互換：新しいバージョンで書かれたペイロードは、読み手が知っているフィールドまで読み、残りは無視する
+ */
+public interface EventSchema<T> {
+
+    /**
+     * スキーマID（1〜65535、アプリ内で一意）
+     */
+    int schemaId();
+
+    /**
+     * 対象のイベント型
+     */
+    Class<T> type();
+
+    /**
+     * 書き込むスキーマバージョン（1〜255）
+     */
+    int version();
+
+    void write(T event, DataOutputStream out) throws IOException;
+
+    /**
+     * @param version ペイロードを書き込んだ側のスキーマバージョン（{@link #version()} より大きい場合がある）
+     */
+    T read(DataInputStream in, int version) throws IOException;
+}
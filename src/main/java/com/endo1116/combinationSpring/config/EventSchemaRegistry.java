@@ -0,0 +1,92 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * アプリ内に埋め込んだ外部化イベントのスキーマレジストリ
+ * 
+ * バイナリ形式のペイロード：
+ * - 1バイト目 マジックバイト（0xEB、JSON の先頭には現れない値）
+ * - 2〜3バイト目 スキーマID
+ * - 4バイト目 スキーマバージョン
+ * - 以降 {@link EventSchema#write} の出力
+ */
+@Slf4j
+public class EventSchemaRegistry {
+
+    static final byte MAGIC = (byte) 0xEB;
+    static final int HEADER_LENGTH = 4;
+
+    private final Map<Class<?>, EventSchema<?>> byType = new HashMap<>();
+    private final Map<Integer, EventSchema<?>> byId = new HashMap<>();
+
+    public EventSchemaRegistry(Collection<? extends EventSchema<?>> schemas) {
+        for (EventSchema<?> schema : schemas) {
+            if (schema.schemaId() < 1 || schema.schemaId() > 0xFFFF) {
+                throw new IllegalArgumentException("スキーマIDは1〜65535で指定してください: " + schema.type().getName());
+            }
+            if (schema.version() < 1 || schema.version() > 0xFF) {
+                throw new IllegalArgumentException("スキーマバージョンは1〜255で指定してください: " + schema.type().getName());
+            }
+            EventSchema<?> duplicated = byId.putIfAbsent(schema.schemaId(), schema);
+            if (duplicated != null) {
+                throw new IllegalStateException("スキーマIDが重複しています: " + schema.schemaId()
+                    + " (" + duplicated.type().getName() + ", " + schema.type().getName() + ")");
+            }
+            if (byType.putIfAbsent(schema.type(), schema) != null) {
+                throw new IllegalStateException("イベント型のスキーマが重複しています: " + schema.type().getName());
+            }
+            log.info("イベントスキーマを登録しました: {} (ID={}, バージョン={})",
+                schema.type().getSimpleName(), schema.schemaId(), schema.version());
+        }
+    }
+
+    public boolean supports(Class<?> type) {
+        return byType.containsKey(type);
+    }
+
+    /**
+     * バイナリ形式で書き込まれたペイロードか
+     */
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object event) throws IOException {
+        EventSchema<Object> schema = (EventSchema<Object>) byType.get(event.getClass());
+        if (schema == null) {
+            throw new IllegalArgumentException("スキーマが登録されていないイベントです: " + event.getClass().getName());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MAGIC);
+        out.writeShort(schema.schemaId());
+        out.writeByte(schema.version());
+        schema.write(event, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public Object decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        in.readByte();
+        int schemaId = in.readUnsignedShort();
+        int version = in.readUnsignedByte();
+        EventSchema<?> schema = byId.get(schemaId);
+        if (schema == null) {
+            throw new IllegalStateException("未知のスキーマIDです: " + schemaId);
+        }
+        // 新しいバージョンで追加された末尾のフィールドは読まずに捨てる
+        return schema.read(in, version);
+    }
+}
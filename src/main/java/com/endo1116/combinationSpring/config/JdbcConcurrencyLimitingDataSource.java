@@ -0,0 +1,147 @@
+package com.endo1116.combinationSpring.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同時に JDBC ドライバを呼び出せるスレッド数をセマフォで制限する DataSource
+ *
+ * SQLite の JDBC ドライバは synchronized メソッド内でファイル I/O を行うため、
+ * 仮想スレッドから呼び出すとキャリアスレッドがピン留めされる。
+ * 同時にドライバへ入るスレッド数をキャリアスレッド数より小さく抑え、
+ * 他の仮想スレッドが実行できるキャリアを残す。
+ *
+ * 許可はコネクション・ステートメント・結果セットのメソッド呼び出しの間だけ保持する。
+ * コネクションを借りている間ずっと保持すると、2本目のコネクションを必要とする呼び出し元
+ * （REQUIRES_NEW など）や長いストリーミング応答が許可を使い切り、互いに待ち続けるため。
+ * ドライバ内でロック待ち（busy_timeout）になったスレッドも許可を保持するので、
+ * 許可の取得は acquire-timeout で打ち切り、SQLTimeoutException として呼び出し元へ返す。
+ *
+ * セマフォの待機は仮想スレッドをアンマウントするため、待機中はキャリアを占有しない。
+ */
+public class JdbcConcurrencyLimitingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    /**
+     * 呼び出しを制限するために包む JDBC のインターフェース
+     */
+    private static final Set<Class<?>> GUARDED_TYPES = Set.of(
+        Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class,
+        ResultSet.class, DatabaseMetaData.class);
+
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+
+    public JdbcConcurrencyLimitingDataSource(DataSource targetDataSource, int maxConcurrency, Duration acquireTimeout) {
+        super(targetDataSource);
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("JDBCの同時実行数は1以上を指定してください: " + maxConcurrency);
+        }
+        if (acquireTimeout.isNegative() || acquireTimeout.isZero()) {
+            throw new IllegalArgumentException("JDBCの実行待ちタイムアウトは正の値を指定してください: " + acquireTimeout);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return (Connection) guard(super.getConnection(), Connection.class);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return (Connection) guard(super.getConnection(username, password), Connection.class);
+    }
+
+    /**
+     * 現在ドライバを呼び出しているスレッド数
+     */
+    public int getActiveCalls() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * 包んでいる DataSource（HikariDataSource など）を閉じる
+     *
+     * BeanPostProcessor で置き換えた Bean の破棄メソッドはこのクラスから推論されるため、
+     * close を委譲しないとコネクションプールが停止時に閉じられない。
+     */
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Object guard(Object target, Class<?> type) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Guarded[" + target + "]";
+                }
+                default -> {
+                }
+            }
+            Object result = invokeWithPermit(target, method, args);
+            Class<?> returnType = method.getReturnType();
+            if (result != null && GUARDED_TYPES.contains(returnType)) {
+                return guard(result, returnType);
+            }
+            return result;
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private Object invokeWithPermit(Object target, Method method, Object[] args) throws Throwable {
+        if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+            // close を失敗させるとコネクションが返却されないため、許可が空くまで待つ
+            permits.acquireUninterruptibly();
+        } else {
+            acquire(method);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire(Method method) throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("JDBCの実行待ちがタイムアウトしました: method="
+                    + method.getName() + ", 待機=" + acquireTimeout.toMillis() + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("JDBCの実行待ちが中断されました", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * バッチ受信リスナー（batchListenerContainerFactory）の設定
+ */
+@Data
+@ConfigurationProperties(prefix = "kafka.batch-listener")
+public class KafkaBatchListenerProperties {
+
+    /**
+     * コンシューマスレッド数（パーティション数以下にする。超えた分は割り当てが無く待機する）
+     */
+    private int concurrency = 1;
+
+    /**
+     * 1回の poll で受け取る最大レコード数（max.poll.records）
+     */
+    private int maxPollRecords = 500;
+
+    /**
+     * 1バッチ内で同時に実行する下流呼び出しの最大数
+     */
+    private int maxInFlight = 64;
+
+    /**
+     * 失敗したバッチの再試行間隔と最大回数（超えた場合はログに出力して読み飛ばす）
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+    private long maxRetries = 3;
+}
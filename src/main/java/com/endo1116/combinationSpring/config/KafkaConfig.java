@@ -1,10 +1,35 @@
 package com.endo1116.combinationSpring.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.converter.JsonMessageConverter;
+import org.springframework.kafka.support.converter.MessagingMessageConverter;
 import org.springframework.kafka.support.converter.RecordMessageConverter;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Kafka設定とOutboxパターン
@@ -19,19 +44,143 @@ import org.springframework.kafka.support.converter.RecordMessageConverter;
  * 設定は application.properties で行います：
  * - spring.modulith.events.externalization.enabled=true
  * - spring.modulith.events.kafka.enabled=true
+ * 
+ * 外部化イベントの送信は {@link ProfiledKafkaTemplate} で行い、トピックごとに
+ * バッチサイズ・linger・圧縮・acks・冪等性を切り替える（kafka.producer.*）。
+ * 送信結果はトピック別に {@link KafkaProducerMetrics} で集計する。
+ * 
+ * イベントの値は {@link EventPayloadSerializer} / {@link EventPayloadDeserializer} で変換する。
+ * kafka.event-encoding.format=BINARY の場合は {@link EventSchemaRegistry} のバイナリ形式で送信し、
+ * 受信側は JSON・バイナリのどちらも読める。
  */
 @Configuration
 @EnableKafka
+@EnableConfigurationProperties({
+    KafkaProducerProfileProperties.class,
+    EventEncodingProperties.class,
+    KafkaBatchListenerProperties.class
+})
+@Slf4j
 public class KafkaConfig {
 
     /**
-     * Kafkaメッセージのシリアライゼーション設定
+     * 受信メッセージをリスナーの引数型に変換する設定
      */
     @Bean
     public RecordMessageConverter messageConverter() {
         return new JsonMessageConverter();
     }
     
+    @Bean
+    public EventSchemaRegistry eventSchemaRegistry(ObjectProvider<EventSchema<?>> schemas) {
+        return new EventSchemaRegistry(schemas.orderedStream().toList());
+    }
+    
+    /**
+     * 受信側は JSON・バイナリのどちらのペイロードも読めるようにする
+     */
+    @Bean
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DefaultKafkaConsumerFactoryCustomizer eventPayloadDeserializerCustomizer(EventSchemaRegistry registry) {
+        return consumerFactory -> ((DefaultKafkaConsumerFactory) consumerFactory)
+            .setValueDeserializerSupplier(() -> new EventPayloadDeserializer(registry));
+    }
+    
+    /**
+     * poll したレコードをまとめて受け取るリスナー向けのコンテナファクトリ
+     * 
+     * オフセットはリスナーがバッチを処理し終えてからまとめてコミットする（AckMode.BATCH）。
+     * リスナーが {@link BatchListenerFailedException} を投げた場合は、失敗したレコードより前のオフセットを
+     * コミットし、失敗したレコード以降を再試行する。
+     * {@link ConsumerAwareRebalanceListener} の Bean があれば、パーティションの割り当て・取り消しを通知する。
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaBatchListenerProperties properties,
+            ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(properties.getConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        rebalanceListener.ifUnique(factory.getContainerProperties()::setConsumerRebalanceListener);
+        
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(properties.getMaxPollRecords()));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+            new FixedBackOff(properties.getRetryInterval().toMillis(), properties.getMaxRetries())));
+        return factory;
+    }
+    
+    @Bean
+    public KafkaProducerMetrics profiledKafkaProducerMetrics() {
+        return new KafkaProducerMetrics();
+    }
+    
+    /**
+     * トピック別のプロデューサ設定で送信する KafkaTemplate
+     * （Spring Modulith の Kafka 外部化はこの KafkaOperations を使う）
+     */
+    @Bean
+    public ProfiledKafkaTemplate kafkaTemplate(
+            KafkaProperties kafkaProperties,
+            KafkaProducerProfileProperties profileProperties,
+            EventEncodingProperties encodingProperties,
+            EventSchemaRegistry schemaRegistry,
+            KafkaProducerMetrics producerMetrics) {
+        Map<String, Object> base = kafkaProperties.buildProducerProperties(null);
+        Supplier<Serializer<Object>> valueSerializer =
+            () -> new EventPayloadSerializer(schemaRegistry, encodingProperties.getFormat());
+        KafkaProducerProfileProperties.Profile defaults = profileProperties.getDefaults();
+        
+        Map<Pattern, ProducerFactory<Object, Object>> matchers = new LinkedHashMap<>();
+        Map<String, DefaultKafkaProducerFactory<Object, Object>> factories = new LinkedHashMap<>();
+        profileProperties.getProfiles().forEach((name, profile) -> {
+            DefaultKafkaProducerFactory<Object, Object> factory =
+                producerFactory(base, valueSerializer, profile.orElse(defaults), name);
+            factories.put(name, factory);
+            profile.getTopics().forEach(topic -> matchers.put(Pattern.compile(topic), factory));
+            log.info("Kafkaプロデューサのプロファイルを登録しました: {} -> {}", name, profile.getTopics());
+        });
+        DefaultKafkaProducerFactory<Object, Object> defaultFactory = producerFactory(base, valueSerializer, defaults, "default");
+        factories.put("default", defaultFactory);
+        matchers.put(Pattern.compile(".*"), defaultFactory);
+        
+        ProfiledKafkaTemplate template = new ProfiledKafkaTemplate(matchers, factories);
+        // ペイロードはオブジェクトのまま EventPayloadSerializer に渡す
+        template.setMessageConverter(new MessagingMessageConverter());
+        template.setProducerListener(producerMetrics);
+        return template;
+    }
+    
+    private static DefaultKafkaProducerFactory<Object, Object> producerFactory(
+            Map<String, Object> base,
+            Supplier<Serializer<Object>> valueSerializer,
+            KafkaProducerProfileProperties.Profile profile,
+            String name) {
+        Map<String, Object> config = new LinkedHashMap<>(base);
+        if (profile.getBatchSize() != null) {
+            config.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+        }
+        if (profile.getLinger() != null) {
+            config.put(ProducerConfig.LINGER_MS_CONFIG, (int) profile.getLinger().toMillis());
+        }
+        if (profile.getCompressionType() != null) {
+            config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+        }
+        if (profile.getAcks() != null) {
+            config.put(ProducerConfig.ACKS_CONFIG, profile.getAcks());
+        }
+        if (profile.getIdempotence() != null) {
+            config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, profile.getIdempotence());
+        }
+        config.put(ProducerConfig.CLIENT_ID_CONFIG, "combinationSpring-" + name);
+        return new DefaultKafkaProducerFactory<>(config, null, valueSerializer);
+    }
+    
     /**
      * Spring Modulith が自動的に以下の処理を行います：
      * 
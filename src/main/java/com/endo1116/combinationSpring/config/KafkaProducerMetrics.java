@@ -0,0 +1,104 @@
+package com.endo1116.combinationSpring.config;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.kafka.support.ProducerListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * トピック別の送信件数・エラー数・送信レイテンシ
+ * 
+ * レイテンシは レコードのタイムスタンプ（send 呼び出し時刻）から ack 受信までの時間で、
+ * linger による待ち時間を含む。固定バケットのヒストグラムで p50 / p99 を近似する。
+ */
+public class KafkaProducerMetrics implements ProducerListener<Object, Object> {
+
+    private static final long[] BUCKET_UPPER_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000};
+
+    private final Map<String, TopicMetrics> topics = new ConcurrentHashMap<>();
+
+    @Override
+    public void onSuccess(ProducerRecord<Object, Object> record, RecordMetadata metadata) {
+        TopicMetrics metrics = metricsFor(record.topic());
+        metrics.sent.increment();
+        metrics.bytes.add(Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize()));
+        if (metadata.hasTimestamp()) {
+            metrics.record(System.currentTimeMillis() - metadata.timestamp());
+        }
+    }
+
+    @Override
+    public void onError(ProducerRecord<Object, Object> record, RecordMetadata metadata, Exception exception) {
+        metricsFor(record.topic()).errors.increment();
+    }
+
+    /**
+     * トピックごとの統計
+     */
+    public Map<String, Map<String, Number>> stats() {
+        Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        topics.forEach((topic, metrics) -> stats.put(topic, metrics.snapshot()));
+        return stats;
+    }
+
+    private TopicMetrics metricsFor(String topic) {
+        return topics.computeIfAbsent(topic, name -> new TopicMetrics());
+    }
+
+    private static final class TopicMetrics {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder latencyTotalMillis = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_UPPER_MILLIS.length + 1);
+
+        private void record(long latencyMillis) {
+            long latency = Math.max(0, latencyMillis);
+            latencyTotalMillis.add(latency);
+            int bucket = 0;
+            while (bucket < BUCKET_UPPER_MILLIS.length && latency > BUCKET_UPPER_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        private Map<String, Number> snapshot() {
+            long count = sent.sum();
+            Map<String, Number> snapshot = new LinkedHashMap<>();
+            snapshot.put("sent", count);
+            snapshot.put("errors", errors.sum());
+            snapshot.put("bytes", bytes.sum());
+            snapshot.put("latencyAvgMs", count > 0 ? (double) latencyTotalMillis.sum() / count : 0.0);
+            snapshot.put("latencyP50Ms", percentile(0.50));
+            snapshot.put("latencyP99Ms", percentile(0.99));
+            return snapshot;
+        }
+
+        /**
+         * 該当バケットの上限値（最後のバケットは -1 = 上限超え）
+         */
+        private long percentile(double percentile) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(total * percentile);
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= threshold) {
+                    return i < BUCKET_UPPER_MILLIS.length ? BUCKET_UPPER_MILLIS[i] : -1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 外部化イベントを送信する Kafka プロデューサのトピック別設定
+ * 
+ * kafka.producer.defaults がすべてのトピックに適用され、kafka.producer.profiles.{名前}.topics
+ * （正規表現）に一致するトピックはそのプロファイルの値で上書きする（定義順に最初に一致したもの）。
+ * 未指定の項目は spring.kafka.producer.* の値を使う。
+ */
+@Data
+@ConfigurationProperties(prefix = "kafka.producer")
+public class KafkaProducerProfileProperties {
+
+    private Profile defaults = new Profile();
+
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+
+        /**
+         * 対象トピックの正規表現（defaults では無視）
+         */
+        private List<String> topics = new ArrayList<>();
+
+        /**
+         * パーティションごとのバッチの最大バイト数（batch.size）
+         */
+        private Integer batchSize;
+
+        /**
+         * バッチが埋まるまで送信を待つ時間（linger.ms）
+         */
+        private Duration linger;
+
+        /**
+         * 圧縮方式（none / gzip / snappy / lz4 / zstd）
+         */
+        private String compressionType;
+
+        /**
+         * 確認応答（0 / 1 / all）
+         */
+        private String acks;
+
+        /**
+         * 冪等プロデューサ（enable.idempotence）
+         */
+        private Boolean idempotence;
+
+        /**
+         * Profile の未指定項目を fallback で補った設定を返す
+         */
+        public Profile orElse(Profile fallback) {
+            Profile merged = new Profile();
+            merged.setTopics(topics);
+            merged.setBatchSize(batchSize != null ? batchSize : fallback.getBatchSize());
+            merged.setLinger(linger != null ? linger : fallback.getLinger());
+            merged.setCompressionType(compressionType != null ? compressionType : fallback.getCompressionType());
+            merged.setAcks(acks != null ? acks : fallback.getAcks());
+            merged.setIdempotence(idempotence != null ? idempotence : fallback.getIdempotence());
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Kafka プロデューサの送信統計を参照するエンドポイント
+ * - topics: トピック別の送信件数・エラー数・レイテンシ
+ * - producers: プロファイル別のバッチサイズ・1リクエストあたりのレコード数・圧縮率など
+ */
+@RestController
+@RequestMapping("/api/kafka/producer")
+@RequiredArgsConstructor
+public class KafkaStatsController {
+
+    private final KafkaProducerMetrics producerMetrics;
+    private final ProfiledKafkaTemplate kafkaTemplate;
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("topics", producerMetrics.stats());
+        stats.put("producers", kafkaTemplate.producerStats());
+        return stats;
+    }
+}
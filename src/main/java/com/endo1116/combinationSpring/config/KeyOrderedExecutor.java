@@ -0,0 +1,111 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * キーのハッシュでタスクを固定数のレーンに振り分けるエグゼキュータ
+ * 
+ * 各レーンは1スレッドの直列キューで、同じキーのタスクは投入順に実行される。
+ * 異なるレーンのタスクは並行に実行される。
+ */
+@Slf4j
+public class KeyOrderedExecutor {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final List<Lane> lanes;
+
+    public KeyOrderedExecutor(int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("レーン数は1以上で指定してください: " + laneCount);
+        }
+        List<Lane> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new Lane(i));
+        }
+        this.lanes = List.copyOf(lanes);
+    }
+
+    public void execute(Object key, Runnable task) {
+        lanes.get(laneOf(key)).submit(task);
+    }
+
+    public int laneOf(Object key) {
+        // hashCode の上位ビットも混ぜてからレーン数で割る
+        int hash = Objects.hashCode(key);
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.size());
+    }
+
+    /**
+     * レーン別の待ち件数・実行中件数・完了件数・待ち件数の最大値
+     */
+    public List<Map<String, Object>> stats() {
+        return lanes.stream().map(Lane::stats).toList();
+    }
+
+    /**
+     * 投入済みのタスクを実行し終えてから停止する（最大 {@value #SHUTDOWN_TIMEOUT_MILLIS} ミリ秒待つ）
+     */
+    public void shutdown() {
+        shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    public void shutdown(long timeoutMillis) {
+        lanes.forEach(lane -> lane.executor.shutdown());
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Lane lane : lanes) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                if (!lane.executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    log.warn("レーン{}の停止がタイムアウトしました: 残り={}件", lane.index, lane.executor.getQueue().size());
+                    lane.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.executor.shutdownNow();
+            }
+        }
+    }
+
+    private static final class Lane {
+
+        private final int index;
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger maxQueued = new AtomicInteger();
+
+        Lane(int index) {
+            this.index = index;
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "module-listener-lane-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+
+        void submit(Runnable task) {
+            executor.execute(task);
+            maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("lane", index);
+            stats.put("queued", executor.getQueue().size());
+            stats.put("active", executor.getActiveCount());
+            stats.put("completed", executor.getCompletedTaskCount());
+            stats.put("maxQueued", maxQueued.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.endo1116.combinationSpring.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link OrderedModuleListener} の実行設定
+ * 
+ * リスナーはイベントのキーのハッシュで {@link KeyOrderedExecutor} のレーンに振り分けられ、
+ * 同じキーのイベントは発行順に直列、異なるキーのイベントは並行に処理される。
+ * レーン数は module-listener.lanes で指定する（既定はCPU数の2倍）。
+ */
+@Configuration
+public class ModuleListenerConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor keyOrderedExecutor(
+            @Value("${module-listener.lanes:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 2}}") int lanes) {
+        return new KeyOrderedExecutor(lanes);
+    }
+
+    @Bean
+    static BeanPostProcessor orderedModuleListenerPostProcessor(ObjectProvider<KeyOrderedExecutor> executor) {
+        return new OrderedModuleListenerPostProcessor(executor);
+    }
+}
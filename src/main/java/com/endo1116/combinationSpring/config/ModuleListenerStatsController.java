@@ -0,0 +1,25 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link OrderedModuleListener} のレーン別の待ち件数・実行中件数・完了件数を参照するエンドポイント
+ */
+@RestController
+@RequestMapping("/api/module-listeners")
+@RequiredArgsConstructor
+public class ModuleListenerStatsController {
+
+    private final KeyOrderedExecutor keyOrderedExecutor;
+
+    @GetMapping("/lanes")
+    public List<Map<String, Object>> lanes() {
+        return keyOrderedExecutor.stats();
+    }
+}
@@ -0,0 +1,36 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ニアキャッシュ（ローカルL1 + Redis L2）の設定
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheProperties {
+
+    /**
+     * L1 を前段に置くキャッシュ名
+     */
+    private List<String> caches = new ArrayList<>(List.of("products"));
+
+    /**
+     * キャッシュごとの L1 最大エントリ数（超過分はサイズベースで追い出す）
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * L1 の有効期限（無効化メッセージを取りこぼした場合の保険）
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(1);
+
+    /**
+     * ノード間で L1 を無効化する Redis Pub/Sub トピック
+     */
+    private String invalidationTopic = "cache:invalidation";
+}
@@ -0,0 +1,47 @@
+package com.endo1116.combinationSpring.config;
+
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * キー単位で順序を保証するモジュール間イベントリスナー
+ * 
+ * @ApplicationModuleListener と同じく、発行元のトランザクションのコミット後に新しいトランザクションで実行する。
+ * ただし @Async の代わりに {@link KeyOrderedExecutor} のレーンで実行し、{@link #key()} が同じイベントは
+ * 発行順に1件ずつ、異なるキーのイベントは並行に処理する。
+ * 
+ * 処理の完了を別のスレッドで待つ場合（バッチ処理への受け渡しなど）は CompletableFuture を返す。
+ * レーンは Future の完了を待たずに次のイベントを処理し、イベント発行は Future の正常完了時に完了となる。
+ * 
+ * 使用例：
+ * <pre>
+ * &#64;OrderedModuleListener(key = "productId")
+ * public void handleOrderCreated(OrderCreatedEvent event) { ... }
+ * </pre>
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Transactional(propagation = Propagation.REQUIRES_NEW)
+@TransactionalEventListener
+public @interface OrderedModuleListener {
+
+    /**
+     * 順序付けのキー（イベントをルートオブジェクトとする SpEL。例: "productId"）
+     */
+    String key();
+
+    /**
+     * リスナーID（イベント発行レジストリの listener_id）
+     */
+    @AliasFor(annotation = TransactionalEventListener.class, attribute = "id")
+    String id() default "";
+}
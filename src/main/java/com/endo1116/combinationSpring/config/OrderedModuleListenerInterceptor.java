@@ -0,0 +1,76 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link OrderedModuleListener} のメソッド呼び出しを、イベントのキーに対応するレーンで実行する
+ * 
+ * @Async と同様に呼び出し元へはすぐに戻り、トランザクション・イベント発行レジストリの完了登録は
+ * レーンのスレッド上で（この後ろのインターセプタとして）行われる。
+ * 失敗したイベントは未完了のまま残り、イベント発行レジストリから再送される。
+ * 
+ * CompletableFuture を返すリスナーは、レーンでは処理の受け渡しまでを行い、Future の完了を待たずに次のイベントへ進む。
+ * イベント発行の完了登録は Future が正常に完了した時点で行われる。
+ */
+@Slf4j
+class OrderedModuleListenerInterceptor implements MethodInterceptor {
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final Map<Method, Expression> keyExpressions = new ConcurrentHashMap<>();
+    private final ObjectProvider<KeyOrderedExecutor> executor;
+
+    OrderedModuleListenerInterceptor(ObjectProvider<KeyOrderedExecutor> executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        if (invocation.getArguments().length != 1
+            || (method.getReturnType() != void.class && method.getReturnType() != CompletableFuture.class)) {
+            throw new IllegalStateException(
+                "@OrderedModuleListener は引数がイベント1つの void または CompletableFuture を返すメソッドに指定してください: " + method);
+        }
+        Object event = invocation.getArguments()[0];
+        Object key = keyExpressions.computeIfAbsent(method, this::parseKey).getValue(event);
+
+        executor.getObject().execute(key, () -> {
+            try {
+                if (invocation.proceed() instanceof CompletableFuture<?> future) {
+                    future.whenComplete((result, e) -> {
+                        if (e != null) {
+                            logFailure(method, key, e);
+                        }
+                    });
+                }
+            } catch (Throwable e) {
+                logFailure(method, key, e);
+            }
+        });
+        return null;
+    }
+
+    private static void logFailure(Method method, Object key, Throwable e) {
+        log.error("イベントリスナーの実行に失敗しました: listener={}.{}, key={}",
+            method.getDeclaringClass().getSimpleName(), method.getName(), key, e);
+    }
+
+    private Expression parseKey(Method method) {
+        OrderedModuleListener annotation = AnnotatedElementUtils.findMergedAnnotation(method, OrderedModuleListener.class);
+        if (annotation == null) {
+            throw new IllegalStateException("@OrderedModuleListener が見つかりません: " + method);
+        }
+        return parser.parseExpression(annotation.key());
+    }
+}
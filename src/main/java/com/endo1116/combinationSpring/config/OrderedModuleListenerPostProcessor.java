@@ -0,0 +1,23 @@
+package com.endo1116.combinationSpring.config;
+
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * {@link OrderedModuleListener} が付いたメソッドに {@link OrderedModuleListenerInterceptor} を適用する
+ * 
+ * AsyncAnnotationBeanPostProcessor と同じく既存のアドバイスより前に挿入するため、
+ * トランザクションとイベント発行の完了登録はレーンのスレッド上で実行される。
+ */
+class OrderedModuleListenerPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    OrderedModuleListenerPostProcessor(ObjectProvider<KeyOrderedExecutor> executor) {
+        this.advisor = new DefaultPointcutAdvisor(
+            AnnotationMatchingPointcut.forMethodAnnotation(OrderedModuleListener.class),
+            new OrderedModuleListenerInterceptor(executor));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+}
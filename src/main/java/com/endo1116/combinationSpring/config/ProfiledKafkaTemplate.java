@@ -0,0 +1,77 @@
+package com.endo1116.combinationSpring.config;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.core.RoutingKafkaTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * トピックのパターンごとにプロデューサ設定（プロファイル）を切り替える KafkaTemplate
+ * 
+ * プロファイルごとに1つの ProducerFactory（共有プロデューサ）を持ち、
+ * 停止時にはすべてのプロデューサを close して送信待ちのバッチを送り切る。
+ */
+public class ProfiledKafkaTemplate extends RoutingKafkaTemplate {
+
+    /**
+     * バッチ化・圧縮の効果を確認するためのプロデューサ単位のメトリクス
+     */
+    private static final Set<String> PRODUCER_METRICS = Set.of(
+        "batch-size-avg", "records-per-request-avg", "compression-rate-avg",
+        "request-latency-avg", "record-queue-time-avg", "request-rate");
+
+    private final Map<String, DefaultKafkaProducerFactory<Object, Object>> factoriesByProfile;
+    private final Set<ProducerFactory<Object, Object>> usedFactories = ConcurrentHashMap.newKeySet();
+
+    public ProfiledKafkaTemplate(
+            Map<Pattern, ProducerFactory<Object, Object>> factoryMatchers,
+            Map<String, DefaultKafkaProducerFactory<Object, Object>> factoriesByProfile) {
+        super(factoryMatchers);
+        this.factoriesByProfile = factoriesByProfile;
+    }
+
+    /**
+     * プロファイルごとのプロデューサメトリクス（未送信のプロファイルは含まない）
+     */
+    public Map<String, Map<String, Double>> producerStats() {
+        Map<String, Map<String, Double>> stats = new LinkedHashMap<>();
+        factoriesByProfile.forEach((profile, factory) -> {
+            if (!usedFactories.contains(factory)) {
+                return;
+            }
+            Map<String, Double> values = new LinkedHashMap<>();
+            try (Producer<Object, Object> producer = factory.createProducer()) {
+                for (Map.Entry<MetricName, ? extends Metric> entry : producer.metrics().entrySet()) {
+                    MetricName name = entry.getKey();
+                    if ("producer-metrics".equals(name.group()) && PRODUCER_METRICS.contains(name.name())
+                            && entry.getValue().metricValue() instanceof Double value && !value.isNaN()) {
+                        values.put(name.name(), value);
+                    }
+                }
+            }
+            stats.put(profile, values);
+        });
+        return stats;
+    }
+
+    @Override
+    public ProducerFactory<Object, Object> getProducerFactory(String topic) {
+        ProducerFactory<Object, Object> factory = super.getProducerFactory(topic);
+        usedFactories.add(factory);
+        return factory;
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        factoriesByProfile.values().forEach(DefaultKafkaProducerFactory::destroy);
+    }
+}
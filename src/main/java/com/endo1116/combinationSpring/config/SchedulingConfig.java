@@ -0,0 +1,19 @@
+package com.endo1116.combinationSpring.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * スケジュール実行の設定
+ * 
+ * 在庫のDB反映など、バックグラウンドで定期実行する処理を有効化します。
+ * 
+ * スケジューラのスレッド数は spring.task.scheduling.pool.size で設定します（既定は1スレッド）。
+ * 1スレッドではアーカイブや Outbox の保守など長い処理の間、在庫リースのハートビートなど他の定期処理が止まるため、
+ * application.properties で複数スレッドにしています（virtual-threads プロファイルでは実行ごとに仮想スレッドを使います）。
+ * 待ち時間を許容できない処理（在庫減算のバッチ反映・出勤打刻のまとめ書き）はスケジューラを使わず専用スレッドで実行します。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,402 @@
+package com.endo1116.combinationSpring.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ローカルL1（Caffeine）と Redis L2 の2層キャッシュ
+ * 
+ * - 読み取りは L1 → L2 の順に参照し、L2 ヒット時は L1 に格納する
+ * - 書き込み・削除は L2 と自ノードの L1 に反映し、他ノードの L1 は Pub/Sub で無効化する
+ * - 一括読み込みは L1 ミス分を L2 への MGET 1往復で、一括書き込みはパイプライン1往復でまとめる
+ * - ローダー付きの読み込み（@Cacheable(sync = true)）は同一キーのロードをノード内で1つにまとめ（single-flight）、
+ *   設定に応じて TTL 満了前に確率的にバックグラウンドで再ロードする（XFetch）
+ */
+public class TwoTierCache implements Cache, BulkCache {
+
+    private static final long UNKNOWN_EXPIRY = 0;
+
+    private final RedisCache redisCache;
+    private final RedisConnectionFactory connectionFactory;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheLoadProperties.Policy loadPolicy;
+    private final Executor refreshExecutor;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * ロード所要時間の移動平均（XFetch の delta として使う）
+     */
+    private volatile long averageLoadNanos;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+
+    public TwoTierCache(
+        RedisCache redisCache,
+        RedisConnectionFactory connectionFactory,
+        NearCacheProperties properties,
+        CacheInvalidationPublisher invalidationPublisher,
+        CacheLoadProperties.Policy loadPolicy,
+        Executor refreshExecutor
+    ) {
+        this.redisCache = redisCache;
+        this.connectionFactory = connectionFactory;
+        this.localCache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .build();
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadPolicy = loadPolicy;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper local = localCache.getIfPresent(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+        l1Misses.increment();
+
+        ValueWrapper remote = redisCache.get(key);
+        if (remote == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        localCache.put(localKey, new LocalEntry(remote.get(), UNKNOWN_EXPIRY));
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "キャッシュ値の型が一致しません: " + type.getName() + " <- " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = loadPolicy.getEarlyRefreshBeta() > 0
+            ? getWithEarlyRefresh(key, valueLoader)
+            : get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        if (!loadPolicy.isSingleFlight()) {
+            return (T) load(key, valueLoader);
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey(key), flight);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return (T) await(key, valueLoader, existing);
+        }
+        runFlight(key, valueLoader, flight);
+        return (T) await(key, valueLoader, flight);
+    }
+
+    /**
+     * L2 の有効期限を L1 エントリに保持し、XFetch の判定に当たればバックグラウンドで再ロードする
+     * （呼び出し元には現在の値を返す）。L1 ミス時は L2 の値と残り TTL をパイプライン1往復で取得する。
+     */
+    private ValueWrapper getWithEarlyRefresh(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper local = localCache.getIfPresent(localKey);
+        if (local != null) {
+            l1Hits.increment();
+            if (local instanceof LocalEntry entry) {
+                refreshEarlyIfNeeded(key, valueLoader, entry.expiresAtMillis());
+            }
+            return local;
+        }
+        l1Misses.increment();
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        byte[] cacheKey = serializeKey(config, key);
+        List<Object> results;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            connection.stringCommands().get(cacheKey);
+            connection.keyCommands().pTtl(cacheKey);
+            results = connection.closePipeline();
+        }
+        byte[] bytes = (byte[]) results.get(0);
+        Object value = bytes != null
+            ? config.getValueSerializationPair().read(ByteBuffer.wrap(bytes))
+            : null;
+        if (value == null || value instanceof NullValue) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        Long remainingMillis = (Long) results.get(1);
+        long expiresAtMillis = remainingMillis != null && remainingMillis > 0
+            ? System.currentTimeMillis() + remainingMillis
+            : UNKNOWN_EXPIRY;
+        LocalEntry entry = new LocalEntry(value, expiresAtMillis);
+        localCache.put(localKey, entry);
+        refreshEarlyIfNeeded(key, valueLoader, expiresAtMillis);
+        return entry;
+    }
+
+    /**
+     * XFetch: now - delta * beta * ln(rand) >= expiry のときに再ロードする
+     */
+    private void refreshEarlyIfNeeded(Object key, Callable<?> valueLoader, long expiresAtMillis) {
+        if (expiresAtMillis == UNKNOWN_EXPIRY) {
+            return;
+        }
+        long remainingMillis = expiresAtMillis - System.currentTimeMillis();
+        double deltaMillis = averageLoadNanos / 1_000_000.0;
+        double gap = -deltaMillis * loadPolicy.getEarlyRefreshBeta()
+            * Math.log(ThreadLocalRandom.current().nextDouble());
+        if (gap < remainingMillis) {
+            return;
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey(key), flight) == null) {
+            earlyRefreshes.increment();
+            refreshExecutor.execute(() -> runFlight(key, valueLoader, flight));
+        }
+    }
+
+    private void runFlight(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            flight.complete(load(key, valueLoader));
+        } catch (Throwable e) {
+            flight.completeExceptionally(e);
+        } finally {
+            inFlight.remove(localKey(key), flight);
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loads.increment();
+        long elapsed = System.nanoTime() - start;
+        long average = averageLoadNanos;
+        averageLoadNanos = average == 0 ? elapsed : (average * 7 + elapsed) / 8;
+        put(key, value);
+        return value;
+    }
+
+    private static Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCache.put(localKey(key), new LocalEntry(value, expiresAt(redisCache.getCacheConfiguration(), key, value)));
+        invalidationPublisher.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> misses = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper local = localCache.getIfPresent(localKey(key));
+            if (local != null && local.get() != null) {
+                l1Hits.increment();
+                found.put(key, local.get());
+            } else {
+                l1Misses.increment();
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        byte[][] cacheKeys = misses.stream()
+            .map(key -> serializeKey(config, key))
+            .toArray(byte[][]::new);
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(cacheKeys);
+        }
+        for (int i = 0; i < misses.size(); i++) {
+            byte[] bytes = values != null ? values.get(i) : null;
+            Object value = bytes != null
+                ? config.getValueSerializationPair().read(ByteBuffer.wrap(bytes))
+                : null;
+            if (value == null || value instanceof NullValue) {
+                l2Misses.increment();
+                continue;
+            }
+            l2Hits.increment();
+            localCache.put(localKey(misses.get(i)), new LocalEntry(value, UNKNOWN_EXPIRY));
+            found.put(misses.get(i), value);
+        }
+        return found;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<String> keys = new ArrayList<>(entries.size());
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            entries.forEach((key, value) -> {
+                if (value == null) {
+                    return;
+                }
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                Expiration expiration = ttl.isZero() || ttl.isNegative()
+                    ? Expiration.persistent()
+                    : Expiration.from(ttl);
+                connection.stringCommands().set(
+                    serializeKey(config, key), serializeValue(config, value), expiration, SetOption.upsert());
+            });
+            connection.closePipeline();
+        }
+        entries.forEach((key, value) -> {
+            if (value != null) {
+                localCache.put(localKey(key), new LocalEntry(value, expiresAt(config, key, value)));
+                keys.add(localKey(key));
+            }
+        });
+        invalidationPublisher.publishEvict(getName(), keys);
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCache.invalidate(localKey(key));
+        invalidationPublisher.publishEvict(getName(), localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        invalidationPublisher.publishClear(getName());
+    }
+
+    /**
+     * 他ノードからの無効化メッセージを受けて L1 のみを削除する
+     */
+    void evictLocal(String key) {
+        localCache.invalidate(key);
+    }
+
+    void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * 階層ごとのヒット・ミス数
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("l1Hits", l1Hits.sum());
+        stats.put("l1Misses", l1Misses.sum());
+        stats.put("l2Hits", l2Hits.sum());
+        stats.put("l2Misses", l2Misses.sum());
+        stats.put("l1Size", localCache.estimatedSize());
+        stats.put("loads", loads.sum());
+        stats.put("coalescedLoads", coalescedLoads.sum());
+        stats.put("earlyRefreshes", earlyRefreshes.sum());
+        return stats;
+    }
+
+    private byte[] serializeKey(RedisCacheConfiguration config, Object key) {
+        String converted = config.getConversionService().convert(key, String.class);
+        String cacheKey = config.usePrefix() ? config.getKeyPrefixFor(getName()) + converted : converted;
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(cacheKey));
+    }
+
+    private static byte[] serializeValue(RedisCacheConfiguration config, Object value) {
+        return ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static long expiresAt(RedisCacheConfiguration config, Object key, Object value) {
+        Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+        return ttl.isZero() || ttl.isNegative()
+            ? UNKNOWN_EXPIRY
+            : System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    /**
+     * L1 のエントリ（L2 の有効期限が分かっている場合は保持し、早期リフレッシュの判定に使う）
+     */
+    private record LocalEntry(Object value, long expiresAtMillis) implements ValueWrapper {
+
+        @Override
+        public Object get() {
+            return value;
+        }
+    }
+}
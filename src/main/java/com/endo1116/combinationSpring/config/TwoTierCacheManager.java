@@ -0,0 +1,89 @@
+package com.endo1116.combinationSpring.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Redis キャッシュの前段にローカル L1 を置く CacheManager
+ * 
+ * {@link NearCacheProperties#getCaches()} に含まれるキャッシュのみ2層化し、
+ * それ以外は Redis キャッシュをそのまま返す。
+ * 早期リフレッシュの再ロードは仮想スレッドで実行する。
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final RedisConnectionFactory connectionFactory;
+    private final NearCacheProperties properties;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheLoadProperties loadProperties;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, TwoTierCache> nearCaches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(
+        CacheManager redisCacheManager,
+        RedisConnectionFactory connectionFactory,
+        NearCacheProperties properties,
+        CacheInvalidationPublisher invalidationPublisher,
+        CacheLoadProperties loadProperties
+    ) {
+        this.redisCacheManager = redisCacheManager;
+        this.connectionFactory = connectionFactory;
+        this.properties = properties;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadProperties = loadProperties;
+        invalidationPublisher.subscribe(this::invalidateLocal);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !properties.getCaches().contains(name)) {
+            return redisCache;
+        }
+        return nearCaches.computeIfAbsent(name,
+            cacheName -> new TwoTierCache((RedisCache) redisCache, connectionFactory, properties,
+                invalidationPublisher, loadProperties.policyFor(cacheName), refreshExecutor));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * 2層キャッシュごとのヒット・ミス数
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> stats = new ConcurrentHashMap<>();
+        nearCaches.forEach((name, cache) -> stats.put(name, cache.stats()));
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    private void invalidateLocal(String cacheName, List<String> keys) {
+        TwoTierCache cache = nearCaches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (keys.isEmpty()) {
+            cache.clearLocal();
+        } else {
+            keys.forEach(cache::evictLocal);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.endo1116.combinationSpring.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 仮想スレッド実行モードの設定（プロファイル: virtual-threads）
+ * 
+ * spring.threads.virtual.enabled=true（application-virtual-threads.properties）により
+ * Tomcat のリクエスト処理・applicationTaskExecutor・スケジューラが仮想スレッドで動作する。
+ * このプロファイルでは @EnableAsync も有効にし、@ApplicationModuleListener を
+ * applicationTaskExecutor（仮想スレッド）上で非同期に実行する。
+ * （@OrderedModuleListener は {@link KeyOrderedExecutor} のレーンで実行されるため対象外）
+ * 
+ * SQLite ドライバの synchronized 区間でのピン留め対策として、DataSource を
+ * {@link JdbcConcurrencyLimitingDataSource} で包み、同時にドライバを呼び出すスレッド数を制限する。
+ */
+@Configuration
+@Profile("virtual-threads")
+@EnableAsync
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor jdbcConcurrencyLimiter(Environment environment) {
+        int maxConcurrency = environment.getProperty("virtual-threads.jdbc.max-concurrency", Integer.class,
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        Duration acquireTimeout = environment.getProperty("virtual-threads.jdbc.acquire-timeout", Duration.class,
+            Duration.ofSeconds(10));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof JdbcConcurrencyLimitingDataSource)) {
+                    log.info("JDBCの同時実行数を制限します: bean={}, 上限={}", beanName, maxConcurrency);
+                    return new JdbcConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
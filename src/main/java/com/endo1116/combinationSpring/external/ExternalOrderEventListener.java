@@ -1,10 +1,30 @@
 package com.endo1116.combinationSpring.external;
 
+import com.endo1116.combinationSpring.common.ProcessedEventStore;
+import com.endo1116.combinationSpring.config.KafkaBatchListenerProperties;
 import com.endo1116.combinationSpring.order.OrderCreatedEvent;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
 /**
  * 外部システム向けのKafkaイベントリスナー
  * 
@@ -16,13 +36,38 @@ import org.springframework.stereotype.Component;
  * 2. Spring ModulithがDBに永続化（event_publicationテーブル）
  * 3. バックグラウンドでKafkaトピック"order.created"に発行
  * 4. このリスナーがイベントを受信（外部システムのシミュレート）
+ * 
+ * ペイロードは JSON・バイナリ（kafka.event-encoding.format=BINARY）のどちらでも
+ * EventPayloadDeserializer が OrderCreatedEvent に変換する。
+ * 
+ * 受信はバッチ単位で行う：
+ * - poll したレコードをキー（注文ID）ごとのレーンに振り分け、レーン内は受信順に処理する
+ * - レーン同士、および1件の中の配送・データウェアハウスへの通知は仮想スレッドで並行に実行する
+ *   （同時実行数は kafka.batch-listener.max-in-flight で制限）
+ * - バッチ全体の処理が終わってからオフセットをコミットする
+ * - 失敗したレコードがある場合は最も前のものを {@link BatchListenerFailedException} で通知し、
+ *   それ以降のレコードを再配信させる
+ * 
+ * 処理に成功した注文IDは {@link ProcessedEventStore} に記録し、再配信・重複送信されたイベントは
+ * 下流を呼び出さずに読み飛ばす（失敗時に再配信される他レーンの処理済みレコードも同様）。
  */
 @Component
 @Slf4j
 public class ExternalOrderEventListener {
 
+    private static final String CONSUMER = "external-order-service";
+
+    private final ProcessedEventStore processedEventStore;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+
+    public ExternalOrderEventListener(ProcessedEventStore processedEventStore, KafkaBatchListenerProperties properties) {
+        this.processedEventStore = processedEventStore;
+        this.inFlight = new Semaphore(properties.getMaxInFlight());
+    }
+
     /**
-     * Kafkaトピック "order.created" からイベントを受信
+     * Kafkaトピック "order.created" からイベントをバッチで受信
      * 
      * 実際の使用例：
      * - 配送システムへの通知
@@ -32,42 +77,109 @@ public class ExternalOrderEventListener {
      */
     @KafkaListener(
         topics = "order.created",
-        groupId = "external-order-service",
-        containerFactory = "kafkaListenerContainerFactory"
+        groupId = CONSUMER,
+        containerFactory = "batchListenerContainerFactory"
     )
-    public void handleExternalOrderCreated(OrderCreatedEvent event) {
-        log.info("=== 外部システムがKafkaイベントを受信しました ===");
-        log.info("注文ID: {}", event.getOrderId());
-        log.info("商品ID: {}", event.getProductId());
-        log.info("数量: {}", event.getQuantity());
-        log.info("顧客名: {}", event.getCustomerName());
-        log.info("作成日時: {}", event.getCreatedAt());
-        
+    public void handleExternalOrderCreated(List<ConsumerRecord<String, OrderCreatedEvent>> records) {
+        long start = System.nanoTime();
+
+        // 処理済みのイベントを除き、キーごとに受信順を保ったまま振り分ける
+        Map<String, List<Integer>> lanes = new LinkedHashMap<>();
+        Set<String> keysInBatch = new HashSet<>();
+        int duplicates = 0;
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, OrderCreatedEvent> record = records.get(i);
+            if (record.key() == null) {
+                lanes.computeIfAbsent(record.partition() + "-" + record.offset(), k -> new ArrayList<>()).add(i);
+                continue;
+            }
+            if (!keysInBatch.add(record.key()) || processedEventStore.isProcessed(CONSUMER, record.key())) {
+                duplicates++;
+                continue;
+            }
+            lanes.computeIfAbsent(record.key(), k -> new ArrayList<>()).add(i);
+        }
+
+        Map<Integer, Exception> failures = new ConcurrentSkipListMap<>();
+        Queue<String> processedKeys = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>(lanes.size());
+        lanes.values().forEach(indexes ->
+            futures.add(executor.submit(() -> processLane(records, indexes, processedKeys, failures))));
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("外部処理の待機中に割り込まれました", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("外部処理の実行に失敗しました", e.getCause());
+        } finally {
+            processedEventStore.markProcessed(CONSUMER, List.copyOf(processedKeys));
+        }
+
+        if (!failures.isEmpty()) {
+            Map.Entry<Integer, Exception> first = failures.entrySet().iterator().next();
+            throw new BatchListenerFailedException(
+                "外部処理に失敗しました: offset=" + records.get(first.getKey()).offset(), first.getValue(), first.getKey());
+        }
+        log.info("=== 外部システムがKafkaイベントを処理しました: 件数={}, 注文数={}, 重複={}, 所要時間={}ms ===",
+            records.size(), lanes.size(), duplicates, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 同じ注文のイベントを受信順に処理する（失敗したら以降のイベントは処理しない）
+     */
+    private void processLane(List<ConsumerRecord<String, OrderCreatedEvent>> records,
+                             List<Integer> indexes,
+                             Queue<String> processedKeys,
+                             Map<Integer, Exception> failures) {
+        for (int index : indexes) {
+            try {
+                process(records.get(index).value());
+                if (records.get(index).key() != null) {
+                    processedKeys.add(records.get(index).key());
+                }
+            } catch (Exception e) {
+                failures.put(index, e);
+                return;
+            }
+        }
+    }
+
+    private void process(OrderCreatedEvent event) throws Exception {
+        log.debug("外部システムがイベントを受信しました: 注文ID={}, 商品ID={}, 数量={}, 顧客名={}, 作成日時={}",
+            event.getOrderId(), event.getProductId(), event.getQuantity(), event.getCustomerName(), event.getCreatedAt());
+
         // ここで外部システムの処理を実行
         // 例：配送手配、在庫連携、通知送信など
-        simulateExternalProcessing(event);
+        Future<?> shipping = executor.submit(() -> callDownstream("配送システム", event));
+        Future<?> warehouse = executor.submit(() -> callDownstream("データウェアハウス", event));
+        try {
+            shipping.get();
+            warehouse.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
     }
-    
+
     /**
-     * 外部システムの処理をシミュレート
+     * 外部システムの呼び出しをシミュレート
      */
-    private void simulateExternalProcessing(OrderCreatedEvent event) {
+    private Void callDownstream(String system, OrderCreatedEvent event) throws InterruptedException {
+        inFlight.acquire();
         try {
-            // 配送システムへの通知をシミュレート
-            log.info("配送システムに通知を送信しています...");
             Thread.sleep(100);
-            log.info("配送システムへの通知が完了しました");
-            
-            // データウェアハウスへのイベント送信をシミュレート
-            log.info("データウェアハウスにイベントを送信しています...");
-            Thread.sleep(100);
-            log.info("データウェアハウスへの送信が完了しました");
-            
-            log.info("=== 外部システムの処理が完了しました ===");
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("外部処理中にエラーが発生しました", e);
+            log.debug("{}への通知が完了しました: 注文ID={}", system, event.getOrderId());
+            return null;
+        } finally {
+            inFlight.release();
         }
     }
 }
-
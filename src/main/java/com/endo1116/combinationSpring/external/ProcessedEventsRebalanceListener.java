@@ -0,0 +1,39 @@
+package com.endo1116.combinationSpring.external;
+
+import com.endo1116.combinationSpring.common.ProcessedEventStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * パーティションが割り当てられたら、前の担当ノードが記録した処理済みイベントを取り込む
+ * 
+ * {@link ProcessedEventStore} の Bloom フィルタはノードごとのため、取り込まずに判定すると
+ * 引き継いだパーティションの再配信をすべて新規とみなし、下流を重複して呼び出してしまう。
+ * 割り当て後の最初の poll より前に呼ばれるため、以降のレコードは取り込み後のフィルタで判定される。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+class ProcessedEventsRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final ProcessedEventStore processedEventStore;
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        try {
+            processedEventStore.mergeRecent();
+        } catch (RuntimeException e) {
+            // 取り込めなくても受信は止めない（フィルタに無いキーは新規として処理される）
+            log.error("処理済みイベントを取り込めませんでした: partitions={}, 原因={}", partitions, e.getMessage());
+        }
+    }
+}
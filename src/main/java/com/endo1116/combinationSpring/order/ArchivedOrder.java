@@ -0,0 +1,47 @@
+package com.endo1116.combinationSpring.order;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * アーカイブ済みの注文（orders_archive）
+ * 
+ * 保持期間を過ぎた完了済み（DELIVERED / CANCELLED）の注文を {@link OrderArchiver} が orders から移動する。
+ * id は元の注文IDをそのまま使う。
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+    @Index(name = "idx_orders_archive_customer_name", columnList = "customerName"),
+    @Index(name = "idx_orders_archive_product_id", columnList = "productId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedOrder {
+    
+    @Id
+    private Long id;
+    
+    private Long productId;
+    
+    private String customerName;
+    
+    private Integer quantity;
+    
+    private Double totalPrice;
+    
+    @Enumerated(EnumType.STRING)
+    private Order.OrderStatus status;
+    
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime archivedAt;
+    
+    public Order toOrder() {
+        return new Order(id, productId, customerName, quantity, totalPrice, status, createdAt);
+    }
+}
@@ -0,0 +1,16 @@
+package com.endo1116.combinationSpring.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    
+    List<ArchivedOrder> findByCustomerName(String customerName);
+    
+    List<ArchivedOrder> findByStatus(Order.OrderStatus status);
+    
+    List<ArchivedOrder> findByProductId(Long productId);
+}
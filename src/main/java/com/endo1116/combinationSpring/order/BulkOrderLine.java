@@ -0,0 +1,20 @@
+package com.endo1116.combinationSpring.order;
+
+/**
+ * 注文一括登録の入力行
+ */
+public record BulkOrderLine(
+    Long productId,
+    String customerName,
+    Integer quantity,
+    Double totalPrice
+) {
+    public Order toOrder() {
+        Order order = new Order();
+        order.setProductId(productId);
+        order.setCustomerName(customerName);
+        order.setQuantity(quantity);
+        order.setTotalPrice(totalPrice);
+        return order;
+    }
+}
@@ -0,0 +1,32 @@
+package com.endo1116.combinationSpring.order;
+
+import java.util.List;
+
+/**
+ * 注文一括登録の結果
+ * 
+ * @param totalLines 読み込んだ行数
+ * @param createdLines 登録できた行数
+ * @param lines 行ごとの結果（入力順）
+ */
+public record BulkOrderResult(
+    long totalLines,
+    long createdLines,
+    List<LineResult> lines
+) {
+    /**
+     * @param line 入力内の行番号（1始まりの通し番号）
+     * @param orderId 登録された注文ID（失敗時は null）
+     * @param error 登録できなかった理由（成功時は null）
+     */
+    public record LineResult(long line, Long orderId, String error) {
+        
+        static LineResult created(long line, Long orderId) {
+            return new LineResult(line, orderId, null);
+        }
+        
+        static LineResult failed(long line, String error) {
+            return new LineResult(line, null, error);
+        }
+    }
+}
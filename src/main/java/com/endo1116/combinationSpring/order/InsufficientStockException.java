@@ -0,0 +1,15 @@
+package com.endo1116.combinationSpring.order;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 在庫不足で注文を受け付けられない場合の例外
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends IllegalStateException {
+    
+    public InsufficientStockException(Long productId, int quantity) {
+        super(String.format("在庫が不足しています。商品ID: %d, 要求数: %d", productId, quantity));
+    }
+}
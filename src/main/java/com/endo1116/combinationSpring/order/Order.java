@@ -11,7 +11,12 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_created_at_id", columnList = "createdAt, id"),
+    @Index(name = "idx_orders_status_created_at", columnList = "status, createdAt"),
+    @Index(name = "idx_orders_customer_name", columnList = "customerName"),
+    @Index(name = "idx_orders_product_id", columnList = "productId")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
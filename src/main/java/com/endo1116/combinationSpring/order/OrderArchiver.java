@@ -0,0 +1,188 @@
+package com.endo1116.combinationSpring.order;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 完了済み注文のアーカイブ
+ * 
+ * 保持期間（order.archive.retention）を過ぎた DELIVERED / CANCELLED の注文を、
+ * chunk-size 件ずつ orders から orders_archive へ移動する。
+ * 1チャンク = 1トランザクション（INSERT ... SELECT と DELETE）で、書き込みロックの保持時間を短く保つ。
+ * orders には未完了・直近の注文だけが残り、通常の検索対象を小さく保てる。
+ * 
+ * アーカイブ済みの id が新しい注文に再利用されないように、orders.id は AUTOINCREMENT にする。
+ * ddl-auto で作られた orders（AUTOINCREMENT の無い rowid で、新しい id は orders 内の最大値 + 1 になる）は、
+ * 起動時に同じ列・インデックスの AUTOINCREMENT のテーブルに作り直し、id の最大値（sqlite_sequence）を
+ * orders_archive を含めた最大の id に合わせる。以降は移動・削除で orders の最大の id が減っても id は再利用されない。
+ * 作り直す前に id が再利用されてアーカイブと重複している注文は移動せずに残し、警告を記録する。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiver {
+    
+    private static final List<String> TERMINAL_STATUSES = List.of(
+        Order.OrderStatus.DELIVERED.name(), Order.OrderStatus.CANCELLED.name());
+    
+    private static final String SELECT_IDS_SQL = """
+        SELECT o.id FROM orders o
+        WHERE o.status IN (:statuses) AND o.created_at < :cutoff
+          AND NOT EXISTS (SELECT 1 FROM orders_archive a WHERE a.id = o.id)
+        ORDER BY o.id
+        LIMIT :limit
+        """;
+
+    private static final String COUNT_CONFLICTS_SQL = """
+        SELECT COUNT(*) FROM orders o
+        WHERE o.status IN (:statuses) AND o.created_at < :cutoff
+          AND EXISTS (SELECT 1 FROM orders_archive a WHERE a.id = o.id)
+        """;
+    
+    private static final String COPY_SQL = """
+        INSERT INTO orders_archive (id, product_id, customer_name, quantity, total_price, status, created_at, archived_at)
+        SELECT id, product_id, customer_name, quantity, total_price, status, created_at, :archivedAt
+        FROM orders WHERE id IN (:ids)
+        """;
+    
+    private static final String DELETE_SQL = "DELETE FROM orders WHERE id IN (:ids)";
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${order.archive.retention:30d}")
+    private Duration retention;
+    
+    @Value("${order.archive.chunk-size:500}")
+    private int chunkSize;
+    
+    /**
+     * orders を AUTOINCREMENT のテーブルに作り直す（作り直し済みなら何もしない）
+     */
+    @PostConstruct
+    void ensureAutoIncrement() {
+        try {
+            Boolean rebuilt = transactionTemplate.execute(status -> rebuildWithAutoIncrement());
+            if (Boolean.TRUE.equals(rebuilt)) {
+                log.info("orders を AUTOINCREMENT のテーブルに作り直しました: 次の id={}", nextOrderId());
+            }
+        } catch (RuntimeException e) {
+            // 作り直しはロールバックされるため、次回の起動時に再実行する
+            log.error("orders を AUTOINCREMENT のテーブルに作り直せませんでした: {}", e.getMessage());
+        }
+    }
+    
+    private boolean rebuildWithAutoIncrement() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        List<String> tableSql = jdbc.queryForList(
+            "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = 'orders'", String.class);
+        if (tableSql.isEmpty() || tableSql.get(0).toUpperCase(Locale.ROOT).contains("AUTOINCREMENT")) {
+            return false;
+        }
+        List<String> indexSql = jdbc.queryForList(
+            "SELECT sql FROM sqlite_master WHERE type = 'index' AND tbl_name = 'orders' AND sql IS NOT NULL",
+            String.class);
+        List<String> columns = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        jdbc.query("PRAGMA table_info(orders)", rs -> {
+            String name = rs.getString("name");
+            columns.add(name);
+            if ("id".equalsIgnoreCase(name)) {
+                definitions.add(name + " INTEGER PRIMARY KEY AUTOINCREMENT");
+            } else {
+                definitions.add(name + " " + rs.getString("type") + (rs.getBoolean("notnull") ? " NOT NULL" : ""));
+            }
+        });
+        String columnList = String.join(", ", columns);
+        
+        jdbc.execute("CREATE TABLE orders_autoincrement (" + String.join(", ", definitions) + ")");
+        jdbc.execute("INSERT INTO orders_autoincrement (" + columnList + ") SELECT " + columnList + " FROM orders");
+        jdbc.execute("DROP TABLE orders");
+        jdbc.execute("ALTER TABLE orders_autoincrement RENAME TO orders");
+        indexSql.forEach(jdbc::execute);
+        
+        // アーカイブ済みの id より後から採番する（orders が空なら sqlite_sequence に行が無い）
+        long highWaterMark = jdbc.queryForObject("""
+            SELECT MAX(COALESCE((SELECT MAX(id) FROM orders), 0), COALESCE((SELECT MAX(id) FROM orders_archive), 0))
+            """, Long.class);
+        if (jdbc.update("UPDATE sqlite_sequence SET seq = ? WHERE name = 'orders'", highWaterMark) == 0) {
+            jdbc.update("INSERT INTO sqlite_sequence (name, seq) VALUES ('orders', ?)", highWaterMark);
+        }
+        return true;
+    }
+    
+    private long nextOrderId() {
+        Long seq = jdbcTemplate.getJdbcTemplate().queryForObject(
+            "SELECT COALESCE(MAX(seq), 0) FROM sqlite_sequence WHERE name = 'orders'", Long.class);
+        return (seq != null ? seq : 0) + 1;
+    }
+    
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:3600000}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long archived = 0;
+        int moved;
+        try {
+            do {
+                moved = archiveChunk(cutoff);
+                archived += moved;
+            } while (moved == chunkSize);
+        } catch (RuntimeException e) {
+            log.error("注文のアーカイブに失敗しました: {}", e.getMessage());
+        }
+        if (archived > 0) {
+            log.info("注文をアーカイブしました: 件数={}, 基準日時={}", archived, cutoff);
+        }
+        warnConflicts(cutoff);
+    }
+
+    /**
+     * アーカイブ済みの id が再利用された注文（移動できない注文）の件数を記録する
+     */
+    private void warnConflicts(LocalDateTime cutoff) {
+        try {
+            Integer conflicts = jdbcTemplate.queryForObject(COUNT_CONFLICTS_SQL, new MapSqlParameterSource()
+                .addValue("statuses", TERMINAL_STATUSES)
+                .addValue("cutoff", Timestamp.valueOf(cutoff)), Integer.class);
+            if (conflicts != null && conflicts > 0) {
+                log.warn("アーカイブ済みの注文と id が重複しているため移動できない注文があります: 件数={}", conflicts);
+            }
+        } catch (RuntimeException e) {
+            log.error("アーカイブと重複する注文を確認できませんでした: {}", e.getMessage());
+        }
+    }
+    
+    private int archiveChunk(LocalDateTime cutoff) {
+        Integer moved = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_IDS_SQL, new MapSqlParameterSource()
+                .addValue("statuses", TERMINAL_STATUSES)
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", chunkSize), Long.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now()));
+            jdbcTemplate.update(COPY_SQL, params);
+            jdbcTemplate.update(DELETE_SQL, params);
+            return ids.size();
+        });
+        return moved != null ? moved : 0;
+    }
+}
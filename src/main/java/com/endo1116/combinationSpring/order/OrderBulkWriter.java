@@ -0,0 +1,86 @@
+package com.endo1116.combinationSpring.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 注文をJDBCバッチでまとめて登録する
+ * 
+ * Order.id は IDENTITY 採番のため Hibernate ではINSERTをバッチ化できない。
+ * 採番結果は last_insert_rowid() から逆算する（ProductBulkWriter と同じ方式）。
+ */
+@Component
+@RequiredArgsConstructor
+class OrderBulkWriter {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO orders (product_id, customer_name, quantity, total_price, status, created_at)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 注文をまとめて登録し、採番された id・作成日時・初期ステータスを各エンティティに設定する
+     */
+    @Transactional
+    public void insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        orders.forEach(order -> {
+            if (order.getStatus() == null) {
+                order.setStatus(Order.OrderStatus.PENDING);
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Order order = orders.get(i);
+                ps.setLong(1, order.getProductId());
+                ps.setString(2, order.getCustomerName());
+                setNullableInt(ps, 3, order.getQuantity());
+                if (order.getTotalPrice() == null) {
+                    ps.setNull(4, Types.DOUBLE);
+                } else {
+                    ps.setDouble(4, order.getTotalPrice());
+                }
+                ps.setString(5, order.getStatus().name());
+                ps.setTimestamp(6, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return orders.size();
+            }
+        });
+
+        Long lastId = jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Long.class);
+        long firstId = lastId - orders.size() + 1;
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            order.setId(firstId + i);
+            order.setCreatedAt(now);
+        }
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.endo1116.combinationSpring.order;
 
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.NdjsonWriter;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -15,6 +24,9 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final NdjsonWriter ndjsonWriter;
+    private final ObjectMapper objectMapper;
+    private final OrderFeed orderFeed;
     
     @PostMapping
     public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order) {
@@ -22,24 +34,77 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
     
+    /**
+     * 注文の一括登録（JSON配列 または 改行区切りJSON）
+     * 行ごとの結果を返し、一部の行が失敗しても残りは登録する
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkOrderResult> createOrders(HttpServletRequest request) throws IOException {
+        try (MappingIterator<BulkOrderLine> lines = objectMapper.readerFor(BulkOrderLine.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(orderService.createOrders(lines));
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<List<Order>> getAllOrders() {
         List<Order> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<Order>> getOrdersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(orderService.getOrdersPage(cursor, limit));
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders() {
+        return ndjsonWriter.stream(orderService::streamOrders);
+    }
+    
+    /**
+     * 注文の作成・ステータス変更を Server-Sent Events で配信する
+     * 再接続時は Last-Event-ID ヘッダ（または lastEventId パラメータ）以降のイベントから再開する
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return orderFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Order order = orderService.getOrderById(id);
+    public ResponseEntity<Order> getOrderById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        Order order = orderService.getOrderById(id, includeArchived);
         return ResponseEntity.ok(order);
     }
     
     @GetMapping("/customer/{customerName}")
-    public ResponseEntity<List<Order>> getOrdersByCustomer(@PathVariable String customerName) {
-        List<Order> orders = orderService.getOrdersByCustomer(customerName);
+    public ResponseEntity<List<Order>> getOrdersByCustomer(
+            @PathVariable String customerName,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<Order> orders = orderService.getOrdersByCustomer(customerName, includeArchived);
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<List<Order>> getOrdersByProduct(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(orderService.getOrdersByProduct(productId, includeArchived));
+    }
+    
+    @GetMapping("/status/{status}")
+    public ResponseEntity<List<Order>> getOrdersByStatus(
+            @PathVariable Order.OrderStatus status,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return ResponseEntity.ok(orderService.getOrdersByStatus(status, includeArchived));
+    }
+    
     @PatchMapping("/{id}/status")
     public ResponseEntity<Order> updateOrderStatus(
             @PathVariable Long id,
@@ -30,15 +30,25 @@ public class OrderCreatedEvent implements Serializable {
     private Long productId;
     private Integer quantity;
     private String customerName;
+    private Double totalPrice;
+    private Order.OrderStatus status;
     private LocalDateTime createdAt;
     
+    /**
+     * 注文作成時に在庫を引き当て済みか（引き当て前に発行されたイベントは false）
+     */
+    private boolean stockReserved;
+    
     public static OrderCreatedEvent from(Order order) {
         return new OrderCreatedEvent(
             order.getId(),
             order.getProductId(),
             order.getQuantity(),
             order.getCustomerName(),
-            order.getCreatedAt()
+            order.getTotalPrice(),
+            order.getStatus(),
+            order.getCreatedAt(),
+            true
         );
     }
 }
@@ -0,0 +1,63 @@
+package com.endo1116.combinationSpring.order;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link OrderCreatedEvent} のバイナリスキーマ
+ * 
+ * バージョン1: orderId, productId, quantity, customerName, totalPrice, status, createdAt, stockReserved の順
+ */
+@Component
+public class OrderCreatedEventSchema implements EventSchema<OrderCreatedEvent> {
+
+    static final int SCHEMA_ID = 1;
+    static final int VERSION = 1;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<OrderCreatedEvent> type() {
+        return OrderCreatedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(OrderCreatedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getOrderId());
+        writeLong(out, event.getProductId());
+        writeInt(out, event.getQuantity());
+        writeString(out, event.getCustomerName());
+        writeDouble(out, event.getTotalPrice());
+        writeEnum(out, event.getStatus());
+        writeDateTime(out, event.getCreatedAt());
+        out.writeBoolean(event.isStockReserved());
+    }
+
+    @Override
+    public OrderCreatedEvent read(DataInputStream in, int version) throws IOException {
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.setOrderId(readLong(in));
+        event.setProductId(readLong(in));
+        event.setQuantity(readInt(in));
+        event.setCustomerName(readString(in));
+        event.setTotalPrice(readDouble(in));
+        event.setStatus(readEnum(in, Order.OrderStatus.class));
+        event.setCreatedAt(readDateTime(in));
+        event.setStockReserved(in.readBoolean());
+        return event;
+    }
+}
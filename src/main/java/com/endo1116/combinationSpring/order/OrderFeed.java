@@ -0,0 +1,294 @@
+package com.endo1116.combinationSpring.order;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 注文フィード（Server-Sent Events）
+ * 
+ * 注文作成・ステータス変更のコミット後にイベントへ通番を振り、購読者へ配信する。
+ * 他ノードでコミットされたイベントは Redis Pub/Sub（order.feed.topic）で受け取り、自ノードのイベントと同様に配信する。
+ * - 購読者ごとに上限付きのキューと送信用の仮想スレッドを持つ。送信が追いつかずキューが溢れた購読者は切断し、
+ *   クライアントは Last-Event-ID を付けて再接続する
+ * - 直近 replay-size 件を保持し、Last-Event-ID 以降のイベントを再送して再開する。
+ *   保持範囲より古い ID から再開した場合は "gap" イベントを送る（クライアントは一覧APIで再同期する）
+ * 
+ * イベントIDは "{ノードID}-{通番}" で、通番はノード（プロセス）ごとに振る。
+ * 別のノードや再起動前のプロセスで受け取ったイベントIDで再接続した場合は、範囲を比較できないため "gap" イベントを送る。
+ * Redis との接続が切れている間に他ノードで発生したイベントは配信されない。
+ * 
+ * 配信はベストエフォートで、コミット後のコールバック（TransactionSynchronization）で行い、Modulith の event_publication には残さない
+ * （再送で古いイベントが新しい通番で配信されないように）。コミット直後にプロセスが停止した場合、そのイベントは配信されない。
+ */
+@Component
+@Slf4j
+public class OrderFeed {
+    
+    static final String CREATED = "order-created";
+    static final String STATUS_CHANGED = "order-status-changed";
+    static final String GAP = "gap";
+    
+    private static final String SEPARATOR = "\n";
+    
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final String topicName;
+    private final int bufferSize;
+    private final int replaySize;
+    private final Duration timeout;
+    
+    private final Object lock = new Object();
+    private final Deque<FeedEvent> recent = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private long sequence;
+    
+    private RTopic topic;
+    
+    public OrderFeed(
+            RedissonClient redissonClient,
+            ObjectMapper objectMapper,
+            @Value("${order.feed.topic:order:feed}") String topicName,
+            @Value("${order.feed.buffer-size:256}") int bufferSize,
+            @Value("${order.feed.replay-size:1024}") int replaySize,
+            @Value("${order.feed.timeout:30m}") Duration timeout) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.topicName = topicName;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.timeout = timeout;
+    }
+    
+    /**
+     * 他ノードでコミットされたイベントを購読する（自ノードが送信したメッセージは無視する）
+     * 
+     * メッセージ形式: {送信元ノードID}\n{イベント種別}\n{イベントのJSON}
+     */
+    @PostConstruct
+    void subscribeOtherNodes() {
+        topic = redissonClient.getTopic(topicName, StringCodec.INSTANCE);
+        topic.addListener(String.class, (channel, message) -> {
+            String[] parts = message.split(SEPARATOR, 3);
+            if (parts.length < 3 || nodeId.equals(parts[0])) {
+                return;
+            }
+            try {
+                publish(parts[1], objectMapper.readTree(parts[2]));
+            } catch (JsonProcessingException e) {
+                log.warn("他ノードの注文フィードのイベントを読み取れませんでした: type={}, error={}", parts[1], e.getMessage());
+            }
+        });
+    }
+    
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        afterCommit(() -> {
+            publish(CREATED, event);
+            forward(CREATED, event);
+        });
+    }
+    
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        afterCommit(() -> {
+            publish(STATUS_CHANGED, event);
+            forward(STATUS_CHANGED, event);
+        });
+    }
+    
+    /**
+     * 購読を開始する
+     * 
+     * @param lastEventId 最後に受信したイベントID（初回接続時は null）
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+        // 購読者として見える（溢れて切断され得る）前に送信スレッドを割り当て、切断時に必ず止められるようにする
+        subscriber.sender = Thread.ofVirtual().name("order-feed-sender").start(() -> send(subscriber));
+        emitter.onCompletion(() -> stop(subscriber));
+        emitter.onTimeout(() -> stop(subscriber));
+        emitter.onError(e -> stop(subscriber));
+        
+        synchronized (lock) {
+            if (lastEventId != null) {
+                replayAfter(lastEventId).forEach(subscriber.queue::offer);
+            }
+            subscribers.add(subscriber);
+        }
+        log.debug("注文フィードの購読を開始しました: lastEventId={}, 購読者数={}", lastEventId, subscribers.size());
+        return emitter;
+    }
+    
+    /**
+     * 接続維持のためのコメントを送る（キューに空きがない購読者はスキップ）
+     */
+    @Scheduled(fixedDelayString = "${order.feed.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.queue.offer(FeedEvent.HEARTBEAT));
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> disconnect(subscriber, null));
+    }
+    
+    /**
+     * 現在のトランザクションのコミット後に実行する（トランザクション外では即時に実行する）
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private void forward(String type, Object event) {
+        try {
+            topic.publishAsync(nodeId + SEPARATOR + type + SEPARATOR + objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("注文フィードのイベントを他ノードへ送信できませんでした: type={}, error={}", type, e.getMessage());
+        }
+    }
+    
+    private void publish(String type, Object payload) {
+        synchronized (lock) {
+            FeedEvent event = new FeedEvent(++sequence, type, payload);
+            recent.addLast(event);
+            if (recent.size() > replaySize) {
+                recent.removeFirst();
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!subscriber.queue.offer(event)) {
+                    log.warn("注文フィードの購読者の送信が追いつかないため切断します: 未送信={}件", subscriber.queue.size());
+                    disconnect(subscriber, null);
+                }
+            }
+        }
+    }
+    
+    private List<FeedEvent> replayAfter(String lastEventId) {
+        List<FeedEvent> replay = new ArrayList<>();
+        FeedEvent oldest = recent.peekFirst();
+        long lastSequence = sequenceOf(lastEventId);
+        boolean outOfRange = lastSequence < 0 || lastSequence > sequence
+            || (oldest != null && lastSequence < oldest.id() - 1);
+        if (!outOfRange) {
+            for (FeedEvent event : recent) {
+                if (event.id() > lastSequence) {
+                    replay.add(event);
+                }
+            }
+        }
+        if (outOfRange || replay.size() > bufferSize) {
+            // 別ノード・再起動前の ID や保持範囲外の ID から再開した、または再送分が購読者のキューに収まらない
+            return List.of(new FeedEvent(sequence, GAP, nodeId + "-" + sequence));
+        }
+        return replay;
+    }
+    
+    /**
+     * 自ノードが振ったイベントIDの通番（別ノード・再起動前のプロセスの ID や不正な ID は -1）
+     */
+    private long sequenceOf(String eventId) {
+        String prefix = nodeId + "-";
+        if (!eventId.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private void send(Subscriber subscriber) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                FeedEvent event = subscriber.queue.take();
+                if (event == FeedEvent.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                        .id(nodeId + "-" + event.id())
+                        .name(event.type())
+                        .data(event.payload()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("注文フィードの送信を終了しました: {}", e.getMessage());
+            disconnect(subscriber, e);
+        }
+    }
+    
+    /**
+     * 購読を解除して送信スレッドを止める（SseEmitter の完了・タイムアウト・エラー時）
+     */
+    private boolean stop(Subscriber subscriber) {
+        boolean removed = subscribers.remove(subscriber);
+        if (subscriber.sender != Thread.currentThread()) {
+            subscriber.sender.interrupt();
+        }
+        return removed;
+    }
+    
+    private void disconnect(Subscriber subscriber, Throwable error) {
+        if (!stop(subscriber)) {
+            return;
+        }
+        if (error != null) {
+            subscriber.emitter.completeWithError(error);
+        } else {
+            subscriber.emitter.complete();
+        }
+    }
+    
+    private record FeedEvent(long id, String type, Object payload) {
+        static final FeedEvent HEARTBEAT = new FeedEvent(-1, "heartbeat", "");
+    }
+    
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<FeedEvent> queue;
+        private volatile Thread sender;
+        
+        private Subscriber(SseEmitter emitter, BlockingQueue<FeedEvent> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
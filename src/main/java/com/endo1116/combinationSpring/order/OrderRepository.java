@@ -1,8 +1,15 @@
 package com.endo1116.combinationSpring.order;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -13,5 +20,23 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByStatus(Order.OrderStatus status);
     
     List<Order> findByProductId(Long productId);
+    
+    /**
+     * キーセットページング（作成日時 + id 順）の先頭ページ
+     */
+    @Query("select o from Order o order by o.createdAt, o.id")
+    List<Order> findFirstPage(Pageable pageable);
+    
+    /**
+     * キーセットページング（作成日時 + id 順）の次ページ
+     */
+    @Query("select o from Order o where o.createdAt > :createdAt or (o.createdAt = :createdAt and o.id > :id) order by o.createdAt, o.id")
+    List<Order> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+    
+    /**
+     * id が afterId より大きい行を id 順に取得する（全件出力を短い読み取りに分けるため）
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
 }
 
@@ -1,12 +1,29 @@
 package com.endo1116.combinationSpring.order;
 
+import com.endo1116.combinationSpring.common.KeysetCursor;
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.KeysetScan;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -15,9 +32,29 @@ public class OrderService {
     
     private final OrderRepository orderRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final OrderBulkWriter orderBulkWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final StockReservation stockReservation;
+    private final ArchivedOrderRepository archivedOrderRepository;
     
+    @Value("${order.bulk.batch-size:500}")
+    private int bulkBatchSize;
+    
+    /**
+     * 注文を作成する
+     * 
+     * 永続化の前に在庫を引き当て、在庫不足の場合は {@link InsufficientStockException} で拒否する。
+     * トランザクションがコミットされなかった場合は引き当てを取り消す。
+     */
     @Transactional
     public Order createOrder(Order order) {
+        if (!reserveStock(order)) {
+            throw new InsufficientStockException(order.getProductId(), order.getQuantity());
+        }
+        releaseStockOnRollback(List.of(order));
+        
         Order savedOrder = orderRepository.save(order);
         log.info("注文を作成しました: {}", savedOrder.getId());
         
@@ -29,28 +66,224 @@ public class OrderService {
         return savedOrder;
     }
     
+    /**
+     * 注文の一括登録
+     * 
+     * 検証と在庫の引き当てを通過した行を batch-size 件ごとに1トランザクションで登録する。
+     * - 注文は JDBC バッチINSERTでまとめて登録
+     * - OrderCreatedEvent も同じトランザクションで発行し、event_publication への書き込みを
+     *   Hibernate の JDBC バッチでまとめる
+     * 不正な行や登録に失敗したチャンクの行はエラーとして返し、残りの行の登録は継続する。
+     */
+    public BulkOrderResult createOrders(Iterator<BulkOrderLine> lines) {
+        List<BulkOrderResult.LineResult> results = new ArrayList<>();
+        List<Order> chunk = new ArrayList<>(bulkBatchSize);
+        List<Long> chunkLines = new ArrayList<>(bulkBatchSize);
+        long lineNumber = 0;
+        long created = 0;
+        
+        while (true) {
+            try {
+                if (!lines.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                results.add(BulkOrderResult.LineResult.failed(lineNumber + 1, "入力を読み取れません: " + e.getMessage()));
+                break;
+            }
+            lineNumber++;
+            
+            Order order;
+            try {
+                order = lines.next().toOrder();
+            } catch (RuntimeException e) {
+                results.add(BulkOrderResult.LineResult.failed(lineNumber, e.getMessage()));
+                continue;
+            }
+            Set<ConstraintViolation<Order>> violations = validator.validate(order);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+                results.add(BulkOrderResult.LineResult.failed(lineNumber, message));
+                continue;
+            }
+            try {
+                if (!reserveStock(order)) {
+                    results.add(BulkOrderResult.LineResult.failed(lineNumber,
+                        new InsufficientStockException(order.getProductId(), order.getQuantity()).getMessage()));
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                results.add(BulkOrderResult.LineResult.failed(lineNumber, e.getMessage()));
+                continue;
+            }
+            
+            chunk.add(order);
+            chunkLines.add(lineNumber);
+            if (chunk.size() >= bulkBatchSize) {
+                created += insertChunk(chunk, chunkLines, results);
+            }
+        }
+        created += insertChunk(chunk, chunkLines, results);
+        
+        results.sort(Comparator.comparingLong(BulkOrderResult.LineResult::line));
+        log.info("注文を一括登録しました: 行数={}, 登録数={}, エラー数={}", lineNumber, created, lineNumber - created);
+        return new BulkOrderResult(lineNumber, created, results);
+    }
+    
+    private int insertChunk(
+            List<Order> chunk,
+            List<Long> chunkLines,
+            List<BulkOrderResult.LineResult> results) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        int inserted;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderBulkWriter.insertAll(chunk);
+                chunk.forEach(order -> eventPublisher.publishEvent(OrderCreatedEvent.from(order)));
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(BulkOrderResult.LineResult.created(chunkLines.get(i), chunk.get(i).getId()));
+            }
+            inserted = chunk.size();
+        } catch (RuntimeException e) {
+            log.error("注文の一括登録に失敗しました: {}", e.getMessage());
+            chunk.forEach(order -> stockReservation.release(order.getProductId(), order.getQuantity()));
+            chunkLines.forEach(line -> results.add(
+                BulkOrderResult.LineResult.failed(line, "登録に失敗しました: " + e.getMessage())));
+            inserted = 0;
+        }
+        chunk.clear();
+        chunkLines.clear();
+        return inserted;
+    }
+    
+    private boolean reserveStock(Order order) {
+        if (order.getProductId() == null || order.getQuantity() == null) {
+            throw new IllegalArgumentException("商品IDと数量を指定してください");
+        }
+        return stockReservation.tryReserve(order.getProductId(), order.getQuantity());
+    }
+    
+    /**
+     * 現在のトランザクションがコミットされなかった場合に、注文の在庫引き当てを取り消す
+     */
+    private void releaseStockOnRollback(List<Order> orders) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    orders.forEach(order -> stockReservation.release(order.getProductId(), order.getQuantity()));
+                    log.info("注文が確定しなかったため在庫の引き当てを取り消しました: {}件", orders.size());
+                }
+            }
+        });
+    }
+    
     @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
     
+    /**
+     * 作成日時 + id のキーセットページングで注文を取得
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Order> getOrdersPage(String cursor, int limit) {
+        return KeysetPage.fetch(cursor, limit, LocalDateTime::parse,
+            orderRepository::findFirstPage, orderRepository::findPageAfter,
+            order -> new KeysetCursor(order.getCreatedAt().toString(), order.getId()));
+    }
+    
+    /**
+     * 全注文を id 順に1件ずつ consumer に渡す（{@link KeysetScan}）
+     */
+    public void streamOrders(Consumer<Order> consumer) {
+        KeysetScan.forEachById(entityManager,
+            orderRepository::findByIdGreaterThanOrderByIdAsc, Order::getId, consumer);
+    }
+    
     @Transactional(readOnly = true)
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("注文が見つかりません: " + id));
     }
     
+    /**
+     * 注文を取得する（includeArchived の場合はアーカイブ済みの注文も対象にする）
+     */
+    @Transactional(readOnly = true)
+    public Order getOrderById(Long id, boolean includeArchived) {
+        if (!includeArchived) {
+            return getOrderById(id);
+        }
+        return orderRepository.findById(id)
+            .or(() -> archivedOrderRepository.findById(id).map(ArchivedOrder::toOrder))
+            .orElseThrow(() -> new IllegalArgumentException("注文が見つかりません: " + id));
+    }
+    
     @Transactional(readOnly = true)
     public List<Order> getOrdersByCustomer(String customerName) {
         return orderRepository.findByCustomerName(customerName);
     }
     
+    /**
+     * 顧客の注文を取得する（includeArchived の場合はアーカイブ済みの注文も含める）
+     */
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByCustomer(String customerName, boolean includeArchived) {
+        List<Order> orders = orderRepository.findByCustomerName(customerName);
+        if (!includeArchived) {
+            return orders;
+        }
+        List<Order> all = new ArrayList<>(orders);
+        archivedOrderRepository.findByCustomerName(customerName).forEach(archived -> all.add(archived.toOrder()));
+        return all;
+    }
+    
+    /**
+     * 商品の注文を取得する（includeArchived の場合はアーカイブ済みの注文も含める）
+     */
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByProduct(Long productId, boolean includeArchived) {
+        List<Order> orders = orderRepository.findByProductId(productId);
+        if (!includeArchived) {
+            return orders;
+        }
+        List<Order> all = new ArrayList<>(orders);
+        archivedOrderRepository.findByProductId(productId).forEach(archived -> all.add(archived.toOrder()));
+        return all;
+    }
+    
+    /**
+     * ステータスで注文を取得する（includeArchived の場合はアーカイブ済みの注文も含める）
+     */
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByStatus(Order.OrderStatus status, boolean includeArchived) {
+        List<Order> orders = orderRepository.findByStatus(status);
+        if (!includeArchived) {
+            return orders;
+        }
+        List<Order> all = new ArrayList<>(orders);
+        archivedOrderRepository.findByStatus(status).forEach(archived -> all.add(archived.toOrder()));
+        return all;
+    }
+    
     @Transactional
     public Order updateOrderStatus(Long id, Order.OrderStatus status) {
         Order order = getOrderById(id);
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
         log.info("注文ステータスを更新しました: {} -> {}", id, status);
+        
+        if (previousStatus != status) {
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(updatedOrder, previousStatus));
+        }
         return updatedOrder;
     }
     
@@ -0,0 +1,54 @@
+package com.endo1116.combinationSpring.order;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 注文統計のサマリー行
+ * 
+ * id は "{集計軸}:{バケットキー}"（例: STATUS:PENDING, PRODUCT:12, HOUR:2024-04-01T10:00）。
+ * {@link OrderStatisticsService} がメモリ上の差分を定期的に加算する。
+ */
+@Entity
+@Table(name = "order_statistics", indexes = {
+    @Index(name = "idx_order_statistics_dimension_bucket", columnList = "dimension, bucketKey")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatistic {
+    
+    @Id
+    private String id;
+    
+    @Enumerated(EnumType.STRING)
+    private Dimension dimension;
+    
+    private String bucketKey;
+    
+    private Long orderCount;
+    
+    private Long quantity;
+    
+    private Double revenue;
+    
+    private LocalDateTime updatedAt;
+    
+    public static String idOf(Dimension dimension, String bucketKey) {
+        return dimension + ":" + bucketKey;
+    }
+    
+    /**
+     * 集計軸
+     * - STATUS: 現在そのステータスにある注文（ステータス変更で移動する）
+     * - PRODUCT: 商品ごとの作成済み注文
+     * - HOUR: 作成日時（1時間単位）ごとの作成済み注文
+     */
+    public enum Dimension {
+        STATUS, PRODUCT, HOUR
+    }
+}
@@ -0,0 +1,13 @@
+package com.endo1116.combinationSpring.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatisticRepository extends JpaRepository<OrderStatistic, String> {
+    
+    List<OrderStatistic> findByDimensionAndBucketKeyBetweenOrderByBucketKey(
+        OrderStatistic.Dimension dimension, String from, String to);
+}
@@ -0,0 +1,27 @@
+package com.endo1116.combinationSpring.order;
+
+/**
+ * 注文統計の値（API レスポンスおよび "orderStats" キャッシュの値）
+ */
+public record OrderStatistics(
+    OrderStatistic.Dimension dimension,
+    String bucketKey,
+    long orderCount,
+    long quantity,
+    double revenue
+) {
+    
+    static OrderStatistics empty(OrderStatistic.Dimension dimension, String bucketKey) {
+        return new OrderStatistics(dimension, bucketKey, 0, 0, 0);
+    }
+    
+    static OrderStatistics from(OrderStatistic statistic) {
+        return new OrderStatistics(
+            statistic.getDimension(),
+            statistic.getBucketKey(),
+            statistic.getOrderCount(),
+            statistic.getQuantity(),
+            statistic.getRevenue()
+        );
+    }
+}
@@ -0,0 +1,56 @@
+package com.endo1116.combinationSpring.order;
+
+import com.endo1116.combinationSpring.config.CacheValueCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * "orderStats" キャッシュ用の {@link OrderStatistics} バイナリコーデック
+ * 
+ * dimension（定数名）, bucketKey, orderCount, quantity, revenue の順
+ */
+@Component
+public class OrderStatisticsCacheCodec implements CacheValueCodec<OrderStatistics> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public String cacheName() {
+        return "orderStats";
+    }
+
+    @Override
+    public Class<OrderStatistics> type() {
+        return OrderStatistics.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(OrderStatistics value, DataOutputStream out) throws IOException {
+        writeEnum(out, value.dimension());
+        writeString(out, value.bucketKey());
+        out.writeLong(value.orderCount());
+        out.writeLong(value.quantity());
+        out.writeDouble(value.revenue());
+    }
+
+    @Override
+    public OrderStatistics read(DataInputStream in, int version) throws IOException {
+        return new OrderStatistics(
+            readEnum(in, OrderStatistic.Dimension.class),
+            readString(in),
+            in.readLong(),
+            in.readLong(),
+            in.readDouble()
+        );
+    }
+}
@@ -0,0 +1,35 @@
+package com.endo1116.combinationSpring.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/orders/statistics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class OrderStatisticsController {
+    
+    private final OrderStatisticsService orderStatisticsService;
+    
+    @GetMapping("/status")
+    public ResponseEntity<List<OrderStatistics>> getStatusStatistics() {
+        return ResponseEntity.ok(orderStatisticsService.getStatusStatistics());
+    }
+    
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<OrderStatistics> getProductStatistics(@PathVariable Long productId) {
+        return ResponseEntity.ok(orderStatisticsService.getProductStatistics(productId));
+    }
+    
+    @GetMapping("/hourly")
+    public ResponseEntity<List<OrderStatistics>> getHourlyStatistics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(orderStatisticsService.getHourlyStatistics(from, to));
+    }
+}
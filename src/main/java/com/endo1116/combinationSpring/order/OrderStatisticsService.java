@@ -0,0 +1,350 @@
+package com.endo1116.combinationSpring.order;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 注文統計（ステータス別・商品別・時間帯別の件数と売上）
+ * 
+ * - 注文作成・ステータス変更のコミット後にメモリ上のカウンタへ差分を加算する
+ * - カウンタは定期的に order_statistics テーブルへ加算（UPSERT）し、該当キーの "orderStats" キャッシュを破棄する
+ * - 読み取りはキャッシュ → サマリー行の主キー参照のみで、orders テーブルは走査しない
+ * 
+ * 反映までの遅延はフラッシュ間隔（order.statistics.flush-interval-ms）まで。
+ * 差分の記録はコミット後のコールバック（TransactionSynchronization）で行い、Modulith の event_publication には残さない
+ * （完了済みとして記録されたイベントが未フラッシュのまま失われたり、再送で二重に加算されたりしないように）。
+ * そのため、コミットから次のフラッシュまで（最大でフラッシュ間隔）の間にプロセスが異常終了した場合、その差分は失われる。
+ * 
+ * 差分の記録を始める前からある注文は、起動時に一度だけ orders・orders_archive から集計し直して
+ * order_statistics を置き換える（order_statistics_backfill に実施済みを記録し、最初に記録したノードのみが行う）。
+ * 集計と同時に他のノードが未フラッシュの差分を持っていた場合、その注文はフラッシュ後に二重に数えられる。
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatisticsService {
+    
+    private static final String UPSERT_SQL = """
+        INSERT INTO order_statistics (id, dimension, bucket_key, order_count, quantity, revenue, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT(id) DO UPDATE SET
+            order_count = order_count + excluded.order_count,
+            quantity = quantity + excluded.quantity,
+            revenue = revenue + excluded.revenue,
+            updated_at = excluded.updated_at
+        """;
+    
+    private final OrderStatisticRepository statisticRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    
+    /**
+     * 未フラッシュの差分。記録側は読み取りロック（共有）、フラッシュ時の入れ替えは書き込みロックで行う
+     */
+    private volatile Map<String, Delta> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    
+    /**
+     * 既存の注文から統計を一度だけ作り直す（実施済みなら何もしない）
+     */
+    @PostConstruct
+    void backfill() {
+        try {
+            jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS order_statistics_backfill (
+                    id INTEGER PRIMARY KEY CHECK (id = 1),
+                    completed_at TIMESTAMP NOT NULL
+                )
+                """);
+            Integer rebuilt = transactionTemplate.execute(status -> {
+                int claimed = jdbcTemplate.update(
+                    "INSERT OR IGNORE INTO order_statistics_backfill (id, completed_at) VALUES (1, ?)",
+                    Timestamp.valueOf(LocalDateTime.now()));
+                if (claimed == 0) {
+                    return null;
+                }
+                return rebuildFromOrders();
+            });
+            if (rebuilt != null) {
+                log.info("既存の注文から注文統計を作り直しました: 集計キー数={}", rebuilt);
+            }
+        } catch (RuntimeException e) {
+            // 実施済みの記録もロールバックされるため、次回の起動時に再実行する
+            log.error("既存の注文から注文統計を作り直せませんでした: {}", e.getMessage());
+        }
+    }
+    
+    private int rebuildFromOrders() {
+        Map<String, Delta> totals = new HashMap<>();
+        jdbcTemplate.query("""
+            SELECT status, product_id, quantity, total_price, created_at FROM orders
+            UNION ALL
+            SELECT status, product_id, quantity, total_price, created_at FROM orders_archive
+            """, rs -> {
+                String status = rs.getString("status");
+                long productId = rs.getLong("product_id");
+                String product = rs.wasNull() ? "null" : String.valueOf(productId);
+                long quantity = rs.getLong("quantity");
+                double revenue = rs.getDouble("total_price");
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                accumulate(totals, OrderStatistic.Dimension.STATUS,
+                    status != null ? status : Order.OrderStatus.PENDING.name(), quantity, revenue);
+                accumulate(totals, OrderStatistic.Dimension.PRODUCT, product, quantity, revenue);
+                if (createdAt != null) {
+                    accumulate(totals, OrderStatistic.Dimension.HOUR,
+                        hourBucket(createdAt.toLocalDateTime()), quantity, revenue);
+                }
+            });
+        jdbcTemplate.update("DELETE FROM order_statistics");
+        writeDeltas(new ArrayList<>(totals.entrySet()), Timestamp.valueOf(LocalDateTime.now()));
+        Cache cache = cacheManager.getCache("orderStats");
+        if (cache != null) {
+            cache.clear();
+        }
+        return totals.size();
+    }
+    
+    private static void accumulate(Map<String, Delta> totals, OrderStatistic.Dimension dimension, String bucketKey,
+                                   long quantity, double revenue) {
+        Delta delta = totals.computeIfAbsent(OrderStatistic.idOf(dimension, bucketKey),
+            id -> new Delta(dimension, bucketKey));
+        delta.orderCount.increment();
+        delta.quantity.add(quantity);
+        delta.revenue.add(revenue);
+    }
+    
+    @EventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        long quantity = valueOf(event.getQuantity());
+        double revenue = valueOf(event.getTotalPrice());
+        Order.OrderStatus status = event.getStatus() != null ? event.getStatus() : Order.OrderStatus.PENDING;
+        LocalDateTime createdAt = event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+        
+        afterCommit(() -> {
+            swapLock.readLock().lock();
+            try {
+                add(OrderStatistic.Dimension.STATUS, status.name(), 1, quantity, revenue);
+                add(OrderStatistic.Dimension.PRODUCT, String.valueOf(event.getProductId()), 1, quantity, revenue);
+                add(OrderStatistic.Dimension.HOUR, hourBucket(createdAt), 1, quantity, revenue);
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        });
+    }
+    
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getPreviousStatus() == event.getStatus()) {
+            return;
+        }
+        long quantity = valueOf(event.getQuantity());
+        double revenue = valueOf(event.getTotalPrice());
+        
+        afterCommit(() -> {
+            swapLock.readLock().lock();
+            try {
+                if (event.getPreviousStatus() != null) {
+                    add(OrderStatistic.Dimension.STATUS, event.getPreviousStatus().name(), -1, -quantity, -revenue);
+                }
+                add(OrderStatistic.Dimension.STATUS, event.getStatus().name(), 1, quantity, revenue);
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        });
+    }
+    
+    /**
+     * 現在のトランザクションのコミット後に実行する（トランザクション外では即時に実行する）
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * メモリ上の差分をサマリーテーブルに加算する
+     */
+    @Scheduled(fixedDelayString = "${order.statistics.flush-interval-ms:5000}")
+    public void flush() {
+        Map<String, Delta> drained;
+        swapLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        
+        List<Map.Entry<String, Delta>> entries = new ArrayList<>(drained.entrySet());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeDeltas(entries, now));
+        } catch (RuntimeException e) {
+            // 次回のフラッシュで再試行できるように差分を戻す
+            log.warn("注文統計のフラッシュに失敗しました。次回再試行します: {}件", entries.size(), e);
+            swapLock.readLock().lock();
+            try {
+                entries.forEach(entry -> {
+                    Delta delta = entry.getValue();
+                    add(delta.dimension, delta.bucketKey,
+                        delta.orderCount.sum(), delta.quantity.sum(), delta.revenue.sum());
+                });
+            } finally {
+                swapLock.readLock().unlock();
+            }
+            return;
+        }
+        
+        Cache cache = cacheManager.getCache("orderStats");
+        if (cache != null) {
+            entries.forEach(entry -> cache.evict(entry.getKey()));
+        }
+        log.debug("注文統計をフラッシュしました: {}件", entries.size());
+    }
+    
+    private void writeDeltas(List<Map.Entry<String, Delta>> entries, Timestamp now) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Delta delta = entries.get(i).getValue();
+                ps.setString(1, entries.get(i).getKey());
+                ps.setString(2, delta.dimension.name());
+                ps.setString(3, delta.bucketKey);
+                ps.setLong(4, delta.orderCount.sum());
+                ps.setLong(5, delta.quantity.sum());
+                ps.setDouble(6, delta.revenue.sum());
+                ps.setTimestamp(7, now);
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+    
+    /**
+     * ステータス別の統計
+     */
+    public List<OrderStatistics> getStatusStatistics() {
+        return Arrays.stream(Order.OrderStatus.values())
+            .map(status -> get(OrderStatistic.Dimension.STATUS, status.name()))
+            .toList();
+    }
+    
+    /**
+     * 商品別の統計
+     */
+    public OrderStatistics getProductStatistics(Long productId) {
+        return get(OrderStatistic.Dimension.PRODUCT, String.valueOf(productId));
+    }
+    
+    /**
+     * 時間帯別（1時間単位）の統計。集計済みの時間帯のみを返す
+     */
+    @Transactional(readOnly = true)
+    public List<OrderStatistics> getHourlyStatistics(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("開始日時は終了日時以前を指定してください");
+        }
+        return statisticRepository.findByDimensionAndBucketKeyBetweenOrderByBucketKey(
+                OrderStatistic.Dimension.HOUR, hourBucket(from), hourBucket(to))
+            .stream()
+            .map(OrderStatistics::from)
+            .toList();
+    }
+    
+    private OrderStatistics get(OrderStatistic.Dimension dimension, String bucketKey) {
+        String id = OrderStatistic.idOf(dimension, bucketKey);
+        Cache cache = cacheManager.getCache("orderStats");
+        if (cache == null) {
+            return load(dimension, bucketKey, id);
+        }
+        return cache.get(id, () -> load(dimension, bucketKey, id));
+    }
+    
+    private OrderStatistics load(OrderStatistic.Dimension dimension, String bucketKey, String id) {
+        return statisticRepository.findById(id)
+            .map(OrderStatistics::from)
+            .orElseGet(() -> OrderStatistics.empty(dimension, bucketKey));
+    }
+    
+    private void add(OrderStatistic.Dimension dimension, String bucketKey, long orderCount, long quantity, double revenue) {
+        Delta delta = pending.computeIfAbsent(OrderStatistic.idOf(dimension, bucketKey),
+            id -> new Delta(dimension, bucketKey));
+        delta.orderCount.add(orderCount);
+        delta.quantity.add(quantity);
+        delta.revenue.add(revenue);
+    }
+    
+    private static String hourBucket(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(ChronoUnit.HOURS).toString();
+    }
+    
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+    
+    private static double valueOf(Double value) {
+        return value != null ? value : 0;
+    }
+    
+    private static final class Delta {
+        private final OrderStatistic.Dimension dimension;
+        private final String bucketKey;
+        private final LongAdder orderCount = new LongAdder();
+        private final LongAdder quantity = new LongAdder();
+        private final DoubleAdder revenue = new DoubleAdder();
+        
+        private Delta(OrderStatistic.Dimension dimension, String bucketKey) {
+            this.dimension = dimension;
+            this.bucketKey = bucketKey;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.endo1116.combinationSpring.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.modulith.events.Externalized;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * ドメインイベント：注文ステータスが変更されたときに発行される
+ * 
+ * @Externalized アノテーションにより、このイベントはKafkaに外部化されます
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Externalized("order.status-changed::#{#this.orderId}")  // Kafkaトピック: order.status-changed, Key: orderId
+public class OrderStatusChangedEvent implements Serializable {
+    
+    private Long orderId;
+    private Long productId;
+    private Integer quantity;
+    private Double totalPrice;
+    private Order.OrderStatus previousStatus;
+    private Order.OrderStatus status;
+    private LocalDateTime changedAt;
+    
+    public static OrderStatusChangedEvent of(Order order, Order.OrderStatus previousStatus) {
+        return new OrderStatusChangedEvent(
+            order.getId(),
+            order.getProductId(),
+            order.getQuantity(),
+            order.getTotalPrice(),
+            previousStatus,
+            order.getStatus(),
+            LocalDateTime.now()
+        );
+    }
+}
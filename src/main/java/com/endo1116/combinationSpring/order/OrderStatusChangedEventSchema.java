@@ -0,0 +1,61 @@
+package com.endo1116.combinationSpring.order;
+
+import com.endo1116.combinationSpring.config.EventSchema;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * {@link OrderStatusChangedEvent} のバイナリスキーマ
+ * 
+ * バージョン1: orderId, productId, quantity, totalPrice, previousStatus, status, changedAt の順
+ */
+@Component
+public class OrderStatusChangedEventSchema implements EventSchema<OrderStatusChangedEvent> {
+
+    static final int SCHEMA_ID = 2;
+    static final int VERSION = 1;
+
+    @Override
+    public int schemaId() {
+        return SCHEMA_ID;
+    }
+
+    @Override
+    public Class<OrderStatusChangedEvent> type() {
+        return OrderStatusChangedEvent.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(OrderStatusChangedEvent event, DataOutputStream out) throws IOException {
+        writeLong(out, event.getOrderId());
+        writeLong(out, event.getProductId());
+        writeInt(out, event.getQuantity());
+        writeDouble(out, event.getTotalPrice());
+        writeEnum(out, event.getPreviousStatus());
+        writeEnum(out, event.getStatus());
+        writeDateTime(out, event.getChangedAt());
+    }
+
+    @Override
+    public OrderStatusChangedEvent read(DataInputStream in, int version) throws IOException {
+        return new OrderStatusChangedEvent(
+            readLong(in),
+            readLong(in),
+            readInt(in),
+            readDouble(in),
+            readEnum(in, Order.OrderStatus.class),
+            readEnum(in, Order.OrderStatus.class),
+            readDateTime(in)
+        );
+    }
+}
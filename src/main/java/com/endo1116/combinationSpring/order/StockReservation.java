@@ -0,0 +1,22 @@
+package com.endo1116.combinationSpring.order;
+
+/**
+ * 注文確定前の在庫引き当て
+ * 
+ * 注文を永続化する前に在庫を引き当て、在庫不足の注文はその場で拒否する。
+ * 実装は在庫を管理するモジュール（Product）が提供する。
+ */
+public interface StockReservation {
+    
+    /**
+     * 在庫を引き当てる
+     * 
+     * @return 引き当てに成功した場合 true、在庫不足の場合 false
+     */
+    boolean tryReserve(Long productId, int quantity);
+    
+    /**
+     * 注文が確定しなかった場合に引き当てを取り消す
+     */
+    void release(Long productId, int quantity);
+}
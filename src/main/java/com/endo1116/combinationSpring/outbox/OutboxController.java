@@ -0,0 +1,31 @@
+package com.endo1116.combinationSpring.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class OutboxController {
+    
+    private final OutboxHousekeeping housekeeping;
+    private final OutboxResubmitter resubmitter;
+    
+    /**
+     * event_publication の件数・最も古い未完了イベント・DB の空きページ数
+     */
+    @GetMapping("/status")
+    public ResponseEntity<OutboxStatus> status() {
+        return ResponseEntity.ok(housekeeping.status());
+    }
+    
+    /**
+     * 未完了イベントの再送の進捗（未完了件数・遅延・完了待ち件数・停止中のイベント型）
+     */
+    @GetMapping("/resubmission")
+    public ResponseEntity<ResubmissionStatus> resubmission() {
+        return ResponseEntity.ok(resubmitter.status());
+    }
+}
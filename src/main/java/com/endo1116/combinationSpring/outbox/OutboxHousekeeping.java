@@ -0,0 +1,171 @@
+package com.endo1116.combinationSpring.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * event_publication の保守
+ * 
+ * Spring Modulith の JPA イベントレジストリは完了済みのイベントも event_publication に残すため、
+ * 放置すると再起動時・再送時の未完了イベントの検索が遅くなる。
+ * 
+ * - 保持期間を過ぎた完了済みイベントを chunk-size 件ずつ削除（または event_publication_archive へ移動）
+ * - 削除後に PRAGMA incremental_vacuum で空きページを解放する（auto_vacuum = INCREMENTAL の場合）
+ * - completion_date にインデックスを張り、未完了イベントの検索を索引で行う
+ */
+@Component
+@EnableConfigurationProperties(OutboxHousekeepingProperties.class)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxHousekeeping {
+
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private static final String SELECT_COMPLETED_IDS_SQL = """
+        SELECT id FROM event_publication
+        WHERE completion_date IS NOT NULL AND completion_date < :cutoff
+        ORDER BY completion_date
+        LIMIT :limit
+        """;
+
+    private static final String ARCHIVE_SQL =
+        "INSERT INTO event_publication_archive SELECT * FROM event_publication WHERE id IN (:ids)";
+
+    private static final String DELETE_SQL = "DELETE FROM event_publication WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxHousekeepingProperties properties;
+
+    /**
+     * event_publication は Hibernate が作成するため、起動完了後にインデックス等を準備する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepare() {
+        try {
+            jdbcTemplate.getJdbcTemplate().execute(
+                "CREATE INDEX IF NOT EXISTS idx_event_publication_completion_date "
+                    + "ON event_publication (completion_date, publication_date)");
+            if (properties.getMode() == OutboxHousekeepingProperties.Mode.ARCHIVE) {
+                jdbcTemplate.getJdbcTemplate().execute(
+                    "CREATE TABLE IF NOT EXISTS event_publication_archive AS SELECT * FROM event_publication WHERE 0");
+            }
+            if (autoVacuum() != AUTO_VACUUM_INCREMENTAL) {
+                if (properties.isEnableIncrementalVacuum()) {
+                    log.info("auto_vacuum を INCREMENTAL に切り替えます（VACUUM を実行）");
+                    jdbcTemplate.getJdbcTemplate().execute("PRAGMA auto_vacuum = INCREMENTAL");
+                    jdbcTemplate.getJdbcTemplate().execute("VACUUM");
+                } else {
+                    log.info("auto_vacuum が INCREMENTAL ではないため、削除後の空きページは再利用のみ行われます");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("event_publication の保守の準備に失敗しました: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.housekeeping.interval-ms:600000}",
+        initialDelayString = "${outbox.housekeeping.interval-ms:600000}")
+    public void housekeep() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        long removed = 0;
+        int chunk;
+        try {
+            do {
+                chunk = removeChunk(cutoff);
+                removed += chunk;
+            } while (chunk == properties.getChunkSize());
+            if (removed > 0 && autoVacuum() == AUTO_VACUUM_INCREMENTAL) {
+                jdbcTemplate.getJdbcTemplate().execute("PRAGMA incremental_vacuum(" + properties.getVacuumPages() + ")");
+            }
+        } catch (RuntimeException e) {
+            log.error("event_publication の保守に失敗しました: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("完了済みのイベントを{}しました: 件数={}, 基準日時={}",
+                properties.getMode() == OutboxHousekeepingProperties.Mode.ARCHIVE ? "アーカイブ" : "削除",
+                removed, cutoff);
+        }
+    }
+
+    /**
+     * event_publication の状況
+     */
+    public OutboxStatus status() {
+        Map<String, Object> counts = jdbcTemplate.getJdbcTemplate().queryForMap("""
+            SELECT
+                COUNT(completion_date) AS completed,
+                COUNT(*) - COUNT(completion_date) AS incomplete
+            FROM event_publication
+            """);
+        List<OutboxStatus.Publication> oldest = jdbcTemplate.getJdbcTemplate().query("""
+            SELECT id, listener_id, event_type, publication_date FROM event_publication
+            WHERE completion_date IS NULL
+            ORDER BY publication_date
+            LIMIT 1
+            """, (rs, rowNum) -> {
+                Timestamp publicationDate = rs.getTimestamp("publication_date");
+                return new OutboxStatus.Publication(
+                    PublicationIds.toUuid(rs.getObject("id")).toString(),
+                    rs.getString("listener_id"),
+                    rs.getString("event_type"),
+                    publicationDate != null ? publicationDate.toInstant() : null);
+            });
+        long archived = properties.getMode() == OutboxHousekeepingProperties.Mode.ARCHIVE
+            ? queryLong("SELECT COUNT(*) FROM event_publication_archive")
+            : 0;
+        return new OutboxStatus(
+            ((Number) counts.get("completed")).longValue(),
+            ((Number) counts.get("incomplete")).longValue(),
+            oldest.isEmpty() ? null : oldest.get(0),
+            archived,
+            queryLong("PRAGMA page_count"),
+            queryLong("PRAGMA freelist_count"),
+            switch (autoVacuum()) {
+                case 1 -> "FULL";
+                case AUTO_VACUUM_INCREMENTAL -> "INCREMENTAL";
+                default -> "NONE";
+            });
+    }
+
+    private int removeChunk(Instant cutoff) {
+        Integer removed = transactionTemplate.execute(status -> {
+            // id は保存形式（BLOB）のまま DELETE のパラメータに渡す
+            List<Object> ids = jdbcTemplate.queryForList(SELECT_COMPLETED_IDS_SQL, new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.from(cutoff))
+                .addValue("limit", properties.getChunkSize()), Object.class);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+            if (properties.getMode() == OutboxHousekeepingProperties.Mode.ARCHIVE) {
+                jdbcTemplate.update(ARCHIVE_SQL, params);
+            }
+            jdbcTemplate.update(DELETE_SQL, params);
+            return ids.size();
+        });
+        return removed != null ? removed : 0;
+    }
+
+    private int autoVacuum() {
+        return (int) queryLong("PRAGMA auto_vacuum");
+    }
+
+    private long queryLong(String sql) {
+        Long value = jdbcTemplate.getJdbcTemplate().queryForObject(sql, Long.class);
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.endo1116.combinationSpring.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * event_publication の保守設定
+ */
+@Data
+@ConfigurationProperties(prefix = "outbox.housekeeping")
+public class OutboxHousekeepingProperties {
+
+    /**
+     * 完了済みイベントの扱い（DELETE: 削除 / ARCHIVE: event_publication_archive へ移動）
+     */
+    private Mode mode = Mode.DELETE;
+
+    /**
+     * 完了してから削除・アーカイブするまでの保持期間
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * 1トランザクションで処理する件数
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * 1回の保守で解放する最大ページ数（PRAGMA incremental_vacuum）
+     */
+    private int vacuumPages = 1000;
+
+    /**
+     * auto_vacuum が INCREMENTAL でない場合に、起動時に切り替えて VACUUM を実行する
+     * （DB 全体を書き直すため、初回のみ有効にする）
+     */
+    private boolean enableIncrementalVacuum = false;
+
+    public enum Mode {
+        DELETE, ARCHIVE
+    }
+}
@@ -0,0 +1,43 @@
+package com.endo1116.combinationSpring.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 未完了イベントの再送設定
+ */
+@Data
+@ConfigurationProperties(prefix = "outbox.resubmission")
+public class OutboxResubmissionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 発行からこの時間を過ぎても未完了のイベントを再送対象にする（処理中のイベントを二重に送らないため）
+     */
+    private Duration minAge = Duration.ofMinutes(1);
+
+    /**
+     * 再送して完了を待っているイベントの最大数
+     */
+    private int maxInFlight = 200;
+
+    /**
+     * 1秒あたりの最大再送数
+     */
+    private double ratePerSecond = 50;
+
+    /**
+     * 再送後この時間内に完了しなければ失敗とみなす
+     */
+    private Duration attemptTimeout = Duration.ofMinutes(2);
+
+    /**
+     * 失敗したイベント型の再送を止める時間（失敗が続くたびに2倍、上限 max-backoff）
+     */
+    private Duration initialBackoff = Duration.ofSeconds(30);
+
+    private Duration maxBackoff = Duration.ofMinutes(30);
+}
@@ -0,0 +1,367 @@
+package com.endo1116.combinationSpring.outbox;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.modulith.events.core.EventSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalApplicationListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 未完了イベントの再送
+ * 
+ * Kafka やリスナーの障害で event_publication に溜まった未完了イベントを、古い順に少しずつ再送する。
+ * 
+ * - 再送して完了を待っている件数を max-in-flight 以下に保ち、1秒あたりの再送数を rate-per-second で制限する
+ * - 再送したイベントは次回の実行時に完了したかを確認し、attempt-timeout を過ぎても未完了なら失敗とみなす
+ * - 失敗したイベント型は指数バックオフで再送を止め、他の型の再送は続ける（完了すれば解除）
+ * 
+ * Spring Modulith の IncompleteEventPublications は実行のたびにすべての未完了行を読み込んでデシリアライズするため使わず、
+ * 古い順に選んだ行（最大 max-in-flight 件）だけをデシリアライズして、listener_id が一致する
+ * トランザクションイベントリスナーを直接呼び出す（Modulith の再送と同じ呼び出し方）。
+ * Kafka への外部化・@OrderedModuleListener は非同期に実行されるため、再送自体は呼び出してすぐに戻り、
+ * 並行数は完了待ちの件数（max-in-flight）で制限される。
+ * 
+ * 定期実行（スケジューラのスレッド）では完了の確認と再送するイベントの選択・復元だけを行い、
+ * レート制限で待ちながらの呼び出しは専用の仮想スレッドで行う。前回の呼び出しが終わっていない間は次を選ばない。
+ */
+@Component
+@EnableConfigurationProperties(OutboxResubmissionProperties.class)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxResubmitter {
+
+    private final EventSerializer eventSerializer;
+    private final ConfigurableApplicationContext applicationContext;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final OutboxResubmissionProperties properties;
+
+    /**
+     * listener_id ごとのトランザクションイベントリスナー（初回の再送時に作成）
+     */
+    private volatile Map<String, TransactionalApplicationListener<?>> listeners;
+
+    private final Map<UUID, Attempt> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Backoff> backoffs = new ConcurrentHashMap<>();
+
+    private final AtomicLong resubmitted = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile Instant lastRunAt;
+
+    private final ExecutorService dispatcher =
+        Executors.newSingleThreadExecutor(Thread.ofVirtual().name("outbox-resubmitter").factory());
+    private volatile Future<?> dispatching = CompletableFuture.completedFuture(null);
+
+    @Scheduled(fixedDelayString = "${outbox.resubmission.interval-ms:30000}",
+        initialDelayString = "${outbox.resubmission.interval-ms:30000}")
+    public void resubmit() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            settleInFlight();
+            lastRunAt = Instant.now();
+            if (!dispatching.isDone()) {
+                log.debug("前回の再送が続いているため、今回は再送するイベントを選びません");
+                return;
+            }
+            List<Resubmission> resubmissions = select();
+            if (!resubmissions.isEmpty()) {
+                dispatching = dispatcher.submit(() -> dispatch(resubmissions));
+            }
+        } catch (RuntimeException e) {
+            log.error("未完了イベントの再送に失敗しました: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    public ResubmissionStatus status() {
+        Map<String, Object> row = jdbcTemplate.getJdbcTemplate().queryForMap(
+            "SELECT COUNT(*) AS incomplete, MIN(publication_date) AS oldest FROM event_publication WHERE completion_date IS NULL");
+        Timestamp oldest = toTimestamp(row.get("oldest"));
+        long lagSeconds = oldest != null
+            ? Math.max(0, Duration.between(oldest.toInstant(), Instant.now()).toSeconds())
+            : 0;
+        List<ResubmissionStatus.Backoff> currentBackoffs = backoffs.entrySet().stream()
+            .map(entry -> new ResubmissionStatus.Backoff(
+                entry.getKey(), entry.getValue().consecutiveFailures(), entry.getValue().retryAt()))
+            .toList();
+        return new ResubmissionStatus(
+            ((Number) row.get("incomplete")).longValue(),
+            lagSeconds,
+            inFlight.size(),
+            resubmitted.get(),
+            recovered.get(),
+            failed.get(),
+            lastRunAt,
+            currentBackoffs);
+    }
+
+    /**
+     * 前回までに再送したイベントの完了を確認し、イベント型ごとのバックオフを更新する
+     */
+    private void settleInFlight() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        List<Object> rawIds = inFlight.values().stream().map(Attempt::rawId).toList();
+        Set<UUID> stillIncomplete = new HashSet<>();
+        jdbcTemplate.query(
+            "SELECT id FROM event_publication WHERE completion_date IS NULL AND id IN (:ids)",
+            new MapSqlParameterSource("ids", rawIds),
+            rs -> {
+                stillIncomplete.add(PublicationIds.toUuid(rs.getObject("id")));
+            });
+
+        Instant now = Instant.now();
+        Set<String> succeededTypes = new HashSet<>();
+        Set<String> failedTypes = new HashSet<>();
+        inFlight.forEach((id, attempt) -> {
+            if (!stillIncomplete.contains(id)) {
+                recovered.incrementAndGet();
+                succeededTypes.add(attempt.eventType());
+                inFlight.remove(id);
+            } else if (attempt.resubmittedAt().plus(properties.getAttemptTimeout()).isBefore(now)) {
+                failed.incrementAndGet();
+                failedTypes.add(attempt.eventType());
+                inFlight.remove(id);
+            }
+        });
+
+        succeededTypes.stream().filter(type -> !failedTypes.contains(type)).forEach(backoffs::remove);
+        failedTypes.forEach(type -> backOff(type, now, "再送したイベントが完了しない"));
+    }
+
+    private void backOff(String type, Instant now, String reason) {
+        backoffs.compute(type, (key, current) -> {
+            int failures = current != null ? current.consecutiveFailures() + 1 : 1;
+            Duration delay = backoffDelay(failures);
+            log.warn("{}ため、イベント型の再送を止めます: type={}, 連続失敗={}, 停止={}秒",
+                reason, type, failures, delay.toSeconds());
+            return new Backoff(failures, now.plus(delay));
+        });
+    }
+
+    /**
+     * 古い順に未完了イベントを選び、再送するイベントとリスナーを復元する（復元できない型はバックオフする）
+     */
+    private List<Resubmission> select() {
+        int budget = properties.getMaxInFlight() - inFlight.size();
+        if (budget <= 0) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        Set<String> blockedTypes = new HashSet<>();
+        backoffs.forEach((type, backoff) -> {
+            if (backoff.retryAt().isAfter(now)) {
+                blockedTypes.add(type);
+            }
+        });
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT id, listener_id, event_type, serialized_event FROM event_publication
+            WHERE completion_date IS NULL AND publication_date < :cutoff
+            """);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("cutoff", Timestamp.from(now.minus(properties.getMinAge())))
+            .addValue("limit", budget);
+        if (!blockedTypes.isEmpty()) {
+            sql.append(" AND event_type NOT IN (:blockedTypes)");
+            params.addValue("blockedTypes", blockedTypes);
+        }
+        if (!inFlight.isEmpty()) {
+            sql.append(" AND id NOT IN (:inFlight)");
+            params.addValue("inFlight", inFlight.values().stream().map(Attempt::rawId).toList());
+        }
+        sql.append(" ORDER BY publication_date LIMIT :limit");
+
+        List<Selected> selected = new ArrayList<>();
+        jdbcTemplate.query(sql.toString(), params, rs -> {
+            selected.add(new Selected(
+                rs.getObject("id"),
+                rs.getString("listener_id"),
+                rs.getString("event_type"),
+                rs.getString("serialized_event")));
+        });
+        if (selected.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> failedTypes = new HashSet<>();
+        List<Resubmission> resubmissions = new ArrayList<>(selected.size());
+        for (Selected row : selected) {
+            if (failedTypes.contains(row.eventType())) {
+                continue;
+            }
+            TransactionalApplicationListener<?> listener = listeners().get(row.listenerId());
+            Object event;
+            try {
+                if (listener == null) {
+                    throw new IllegalStateException("リスナーが見つかりません: " + row.listenerId());
+                }
+                event = eventSerializer.deserialize(row.serializedEvent(), Class.forName(row.eventType()));
+            } catch (ClassNotFoundException | RuntimeException e) {
+                log.warn("未完了イベントを再送できません: id={}, 原因={}", PublicationIds.toUuid(row.rawId()), e.getMessage());
+                failedTypes.add(row.eventType());
+                continue;
+            }
+            resubmissions.add(new Resubmission(row, listener, event));
+        }
+        failedTypes.forEach(type -> {
+            failed.incrementAndGet();
+            backOff(type, now, "未完了イベントを復元できない");
+        });
+        return resubmissions.stream().filter(it -> !failedTypes.contains(it.row().eventType())).toList();
+    }
+
+    /**
+     * 選んだイベントをレート制限しながら再送する（再送用のスレッドで実行する）
+     */
+    private void dispatch(List<Resubmission> resubmissions) {
+        RateLimiter limiter = new RateLimiter(properties.getRatePerSecond());
+        int dispatched = 0;
+        for (Resubmission resubmission : resubmissions) {
+            if (!limiter.acquire()) {
+                break;
+            }
+            Selected row = resubmission.row();
+            UUID id = PublicationIds.toUuid(row.rawId());
+            inFlight.put(id, new Attempt(row.rawId(), row.eventType(), Instant.now()));
+            try {
+                invoke(resubmission.listener(), resubmission.event());
+                dispatched++;
+            } catch (RuntimeException e) {
+                // 同期的に失敗したリスナーは次回の確認で attempt-timeout 後に失敗として数える
+                log.warn("未完了イベントの再送でリスナーが失敗しました: id={}, 原因={}", id, e.getMessage());
+            }
+        }
+        resubmitted.addAndGet(dispatched);
+        if (dispatched > 0) {
+            log.info("未完了イベントを再送しました: 件数={}, 完了待ち={}, 停止中の型={}",
+                dispatched, inFlight.size(), backoffs.keySet());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void invoke(TransactionalApplicationListener<?> listener, Object event) {
+        ApplicationEvent applicationEvent = event instanceof ApplicationEvent it
+            ? it
+            : new PayloadApplicationEvent<>(OutboxResubmitter.class, event);
+        ((TransactionalApplicationListener<ApplicationEvent>) listener).processEvent(applicationEvent);
+    }
+
+    private Map<String, TransactionalApplicationListener<?>> listeners() {
+        Map<String, TransactionalApplicationListener<?>> current = listeners;
+        if (current == null) {
+            current = new HashMap<>();
+            if (applicationContext instanceof AbstractApplicationContext context) {
+                for (ApplicationListener<?> listener : context.getApplicationListeners()) {
+                    if (listener instanceof TransactionalApplicationListener<?> transactional) {
+                        current.put(transactional.getListenerId(), transactional);
+                    }
+                }
+            }
+            listeners = current;
+        }
+        return current;
+    }
+
+    private Duration backoffDelay(int failures) {
+        long multiplier = 1L << Math.min(failures - 1, 20);
+        Duration delay = properties.getInitialBackoff().multipliedBy(multiplier);
+        return delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp;
+        }
+        if (value instanceof Number epochMillis) {
+            return new Timestamp(epochMillis.longValue());
+        }
+        return Timestamp.valueOf(value.toString());
+    }
+
+    /**
+     * @param rawId event_publication.id の保存形式の値
+     */
+    private record Attempt(Object rawId, String eventType, Instant resubmittedAt) {}
+
+    /**
+     * 再送対象に選んだ行（id は保存形式の値）
+     */
+    private record Selected(Object rawId, String listenerId, String eventType, String serializedEvent) {}
+
+    /**
+     * 再送するイベントと呼び出すリスナー
+     */
+    private record Resubmission(Selected row, TransactionalApplicationListener<?> listener, Object event) {}
+
+    private record Backoff(int consecutiveFailures, Instant retryAt) {}
+
+    /**
+     * 一定間隔で許可を払い出す単純なレート制限（再送用のスレッドのみで使う）
+     */
+    private static final class RateLimiter {
+
+        private final long intervalNanos;
+        private long nextFreeNanos = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(permitsPerSecond, 0.001));
+        }
+
+        /**
+         * @return 許可を得た場合 true、待機中に割り込まれた（停止する）場合 false
+         */
+        boolean acquire() {
+            long now = System.nanoTime();
+            long waitNanos = nextFreeNanos - now;
+            nextFreeNanos = Math.max(nextFreeNanos, now) + intervalNanos;
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.endo1116.combinationSpring.outbox;
+
+import java.time.Instant;
+
+/**
+ * event_publication の状況
+ * 
+ * @param completed 完了済みの件数
+ * @param incomplete 未完了の件数
+ * @param oldestIncomplete 最も古い未完了イベント（無い場合は null）
+ * @param archived アーカイブ済みの件数（ARCHIVE モード以外は 0）
+ * @param databasePages DB のページ数
+ * @param freePages 未使用のページ数（incremental_vacuum で解放される）
+ * @param autoVacuum auto_vacuum の設定（NONE / FULL / INCREMENTAL）
+ */
+public record OutboxStatus(
+    long completed,
+    long incomplete,
+    Publication oldestIncomplete,
+    long archived,
+    long databasePages,
+    long freePages,
+    String autoVacuum
+) {
+    public record Publication(String id, String listenerId, String eventType, Instant publicationDate) {}
+}
@@ -0,0 +1,31 @@
+package com.endo1116.combinationSpring.outbox;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * event_publication.id の読み取り
+ * 
+ * SQLite ではネイティブの UUID 型が無いため、Hibernate は id を16バイトの BLOB として保存する。
+ * JDBC で直接読み書きする場合は、読み取った値（byte[]）をそのままパラメータに渡して比較し、
+ * UUID が必要な場合のみ変換する。
+ */
+final class PublicationIds {
+
+    private PublicationIds() {
+    }
+
+    static UUID toUuid(Object id) {
+        if (id instanceof byte[] bytes && bytes.length == 16) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        if (id instanceof String value) {
+            return UUID.fromString(value);
+        }
+        if (id instanceof UUID uuid) {
+            return uuid;
+        }
+        throw new IllegalArgumentException("event_publication.id を UUID に変換できません: " + id);
+    }
+}
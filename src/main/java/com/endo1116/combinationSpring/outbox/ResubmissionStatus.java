@@ -0,0 +1,29 @@
+package com.endo1116.combinationSpring.outbox;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 未完了イベントの再送の進捗
+ * 
+ * @param incomplete 未完了の件数
+ * @param lagSeconds 最も古い未完了イベントの発行からの経過秒数（未完了が無い場合は 0）
+ * @param inFlight 再送して完了を待っている件数
+ * @param resubmitted 再送した件数（累計）
+ * @param recovered 再送後に完了した件数（累計）
+ * @param failed 再送後に完了しなかった件数（累計）
+ * @param lastRunAt 最後に再送を実行した日時
+ * @param backoffs 再送を止めているイベント型
+ */
+public record ResubmissionStatus(
+    long incomplete,
+    long lagSeconds,
+    int inFlight,
+    long resubmitted,
+    long recovered,
+    long failed,
+    Instant lastRunAt,
+    List<Backoff> backoffs
+) {
+    public record Backoff(String eventType, int consecutiveFailures, Instant retryAt) {}
+}
@@ -0,0 +1,13 @@
+/**
+ * Outbox Module
+ * 
+ * イベント発行レジストリ（event_publication）の保守
+ * - 完了済みイベントの削除・アーカイブ
+ * - 未完了イベントの滞留状況の参照
+ * - 未完了イベントの再送（並行数・レート制限、イベント型ごとのバックオフ）
+ */
+@org.springframework.modulith.ApplicationModule(
+    displayName = "Outbox",
+    allowedDependencies = {}
+)
+package com.endo1116.combinationSpring.outbox;
@@ -11,7 +11,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_name_id", columnList = "name, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,81 @@
+package com.endo1116.combinationSpring.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品をJDBCバッチでまとめて登録する
+ * 
+ * Product.id は IDENTITY 採番のため Hibernate ではINSERTをバッチ化できない。
+ * ここでは1トランザクション内で JDBC バッチINSERTを実行し、採番結果は
+ * last_insert_rowid() から逆算する（SQLite は書き込みロックを保持したトランザクション内で
+ * rowid を連番で払い出すため、バッチ内の id は連続する）。
+ */
+@Component
+@RequiredArgsConstructor
+class ProductBulkWriter {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO products (name, description, price, stock_quantity, category, created_at, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 商品をまとめて登録し、採番された id を各エンティティに設定する
+     */
+    @Transactional
+    public void insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Product product = products.get(i);
+                ps.setString(1, product.getName());
+                setNullableString(ps, 2, product.getDescription());
+                ps.setDouble(3, product.getPrice());
+                ps.setInt(4, product.getStockQuantity());
+                setNullableString(ps, 5, product.getCategory());
+                ps.setTimestamp(6, timestamp);
+                ps.setTimestamp(7, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return products.size();
+            }
+        });
+
+        Long lastId = jdbcTemplate.queryForObject("SELECT last_insert_rowid()", Long.class);
+        long firstId = lastId - products.size() + 1;
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            product.setId(firstId + i);
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+        }
+    }
+
+    private static void setNullableString(PreparedStatement ps, int index, String value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, value);
+        }
+    }
+}
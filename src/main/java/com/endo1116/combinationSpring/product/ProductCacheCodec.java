@@ -0,0 +1,62 @@
+package com.endo1116.combinationSpring.product;
+
+import com.endo1116.combinationSpring.config.CacheValueCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static com.endo1116.combinationSpring.config.BinaryCodecSupport.*;
+
+/**
+ * "products" キャッシュ用の {@link Product} バイナリコーデック
+ * 
+ * バージョン1: id, name, description, price, stockQuantity, category, createdAt, updatedAt の順
+ */
+@Component
+public class ProductCacheCodec implements CacheValueCodec<Product> {
+
+    static final int VERSION = 1;
+
+    @Override
+    public String cacheName() {
+        return "products";
+    }
+
+    @Override
+    public Class<Product> type() {
+        return Product.class;
+    }
+
+    @Override
+    public int version() {
+        return VERSION;
+    }
+
+    @Override
+    public void write(Product product, DataOutputStream out) throws IOException {
+        writeLong(out, product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        writeDouble(out, product.getPrice());
+        writeInt(out, product.getStockQuantity());
+        writeString(out, product.getCategory());
+        writeDateTime(out, product.getCreatedAt());
+        writeDateTime(out, product.getUpdatedAt());
+    }
+
+    @Override
+    public Product read(DataInputStream in, int version) throws IOException {
+        Product product = new Product();
+        product.setId(readLong(in));
+        product.setName(readString(in));
+        product.setDescription(readString(in));
+        product.setPrice(readDouble(in));
+        product.setStockQuantity(readInt(in));
+        product.setCategory(readString(in));
+        product.setCreatedAt(readDateTime(in));
+        product.setUpdatedAt(readDateTime(in));
+        return product;
+    }
+}
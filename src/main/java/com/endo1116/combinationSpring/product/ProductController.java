@@ -1,12 +1,24 @@
 package com.endo1116.combinationSpring.product;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.NdjsonWriter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -15,6 +27,9 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final ProductSearchIndex productSearchIndex;
+    private final NdjsonWriter ndjsonWriter;
+    private final ObjectMapper objectMapper;
     
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
@@ -22,12 +37,46 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
     
+    /**
+     * 商品の一括登録（JSON配列をストリームとして1件ずつ読み込む）
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductImportResult> importProductsJson(HttpServletRequest request) throws IOException {
+        try (MappingIterator<ProductImportRow> rows = objectMapper.readerFor(ProductImportRow.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(productService.importProducts(rows));
+        }
+    }
+    
+    /**
+     * 商品の一括登録（ヘッダ付きCSV）
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ProductImportResult> importProductsCsv(HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return ResponseEntity.ok(productService.importProducts(new ProductCsvReader(reader)));
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<List<Product>> getAllProducts() {
         List<Product> products = productService.getAllProducts();
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/page")
+    public ResponseEntity<KeysetPage<Product>> getProductsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) int limit) {
+        return ResponseEntity.ok(productService.getProductsPage(cursor, limit));
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProducts() {
+        return ndjsonWriter.stream(productService::streamProducts);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         Product product = productService.getProductById(id);
@@ -41,11 +90,30 @@ public class ProductController {
     }
     
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        List<Product> products = productService.searchProductsByName(name);
+    public ResponseEntity<List<Product>> searchProducts(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<Product> products = productService.searchProductsByName(name, limit);
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * 商品名の検索インデックスの状態（構築済みか、構築の失敗回数と直近の原因）
+     */
+    @GetMapping("/search/index-stats")
+    public Map<String, Object> searchIndexStats() {
+        return productSearchIndex.stats();
+    }
+    
+    /**
+     * 複数商品の在庫をまとめて確認する
+     */
+    @PostMapping("/stock-availability")
+    public ResponseEntity<List<StockAvailability>> checkStockAvailability(
+            @RequestBody List<StockCheckItem> items) {
+        return ResponseEntity.ok(productService.checkStockAvailability(items));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable Long id,
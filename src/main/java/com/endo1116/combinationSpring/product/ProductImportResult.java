@@ -0,0 +1,21 @@
+package com.endo1116.combinationSpring.product;
+
+import java.util.List;
+
+/**
+ * 商品一括登録の結果
+ * 
+ * @param totalRows 読み込んだ行数
+ * @param importedRows 登録できた行数
+ * @param errors 登録できなかった行とその理由
+ */
+public record ProductImportResult(
+    long totalRows,
+    long importedRows,
+    List<RowError> errors
+) {
+    /**
+     * @param row 入力内の行番号（データ行の1始まりの通し番号）
+     */
+    public record RowError(long row, String message) {}
+}
@@ -0,0 +1,22 @@
+package com.endo1116.combinationSpring.product;
+
+/**
+ * 商品一括登録の入力行
+ */
+public record ProductImportRow(
+    String name,
+    String description,
+    Double price,
+    Integer stockQuantity,
+    String category
+) {
+    public Product toProduct() {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(price);
+        product.setStockQuantity(stockQuantity);
+        product.setCategory(category);
+        return product;
+    }
+}
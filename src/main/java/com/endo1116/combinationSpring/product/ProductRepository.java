@@ -1,9 +1,19 @@
 package com.endo1116.combinationSpring.product;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -13,5 +23,65 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByNameContaining(String name);
     
     List<Product> findByStockQuantityGreaterThan(Integer quantity);
+    
+    /**
+     * キーセットページング（商品名 + id 順）の先頭ページ
+     */
+    @Query("select p from Product p order by p.name, p.id")
+    List<Product> findFirstPage(Pageable pageable);
+    
+    /**
+     * キーセットページング（商品名 + id 順）の次ページ
+     */
+    @Query("select p from Product p where p.name > :name or (p.name = :name and p.id > :id) order by p.name, p.id")
+    List<Product> findPageAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+    
+    /**
+     * id が afterId より大きい行を id 順に取得する（全件出力を短い読み取りに分けるため）
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    /**
+     * 検索インデックス構築用に id と商品名だけを id 順に取得する
+     */
+    @Query("select p.id as id, p.name as name from Product p where p.id > :afterId order by p.id")
+    List<NameView> findNamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("select p.id as id, p.name as name from Product p where p.id in :ids")
+    List<NameView> findNamesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("select p.stockQuantity from Product p where p.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") Long id);
+    
+    /**
+     * 在庫が足りる場合のみ在庫数を差分で減らす（エンティティをロードせずに1文で更新）
+     * 
+     * @return 更新件数（在庫不足または商品が存在しない場合は 0）
+     */
+    @Transactional
+    @Modifying
+    @Query(
+        value = "UPDATE products SET stock_quantity = stock_quantity - :quantity WHERE id = :id AND stock_quantity >= :quantity",
+        nativeQuery = true
+    )
+    int decreaseStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    /**
+     * 在庫数のみを取得（在庫カウンタの補正用）
+     */
+    @Query("select p.id as id, p.stockQuantity as stockQuantity from Product p where p.id in :ids")
+    List<StockView> findStockQuantitiesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface StockView {
+        Long getId();
+        
+        Integer getStockQuantity();
+    }
+    
+    interface NameView {
+        Long getId();
+        
+        String getName();
+    }
 }
-
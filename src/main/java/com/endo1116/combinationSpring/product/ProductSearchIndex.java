@@ -0,0 +1,342 @@
+package com.endo1116.combinationSpring.product;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商品名のインメモリ検索インデックス
+ * 
+ * LIKE '%name%' による全件スキャンを避けるため、商品名のトライグラム・バイグラムの転置インデックスを保持する。
+ * どのクエリも LIKE '%name%' と同じく部分一致で検索する。
+ * 
+ * - 3文字以上のクエリ: トライグラムのポスティングを小さい順に積集合し、部分一致で検証
+ * - 2文字のクエリ: バイグラムのポスティング
+ * - 1文字のクエリ: インデックス内の商品名を走査
+ * - 起動時にDBから id 順にページングして構築する（失敗した場合は読み込み済みの id の次から間隔を空けて再試行し、
+ *   構築の状態は {@link #stats} で確認できる。構築が終わるまで検索は LIKE にフォールバックする）
+ * - 書き込みはコミット後に {@link #update}・{@link #delete} で反映し、Redis Pub/Sub（product.search.invalidation-topic）で
+ *   他ノードに通知する（通知を受けたノードは DB から該当商品の名前を読み直す）
+ * 
+ * 結果は「完全一致 → 前方一致 → 単語の前方一致 → 部分一致」、同順位は名前の短い順に並べる。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int SHORT_GRAM_SIZE = 2;
+    private static final String SEPARATOR = "\n";
+    private static final int MAX_IDS_PER_MESSAGE = 1000;
+    private static final Duration INITIAL_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ProductRepository productRepository;
+    private final RedissonClient redissonClient;
+
+    @Value("${product.search.warmup-page-size:1000}")
+    private int warmupPageSize;
+
+    @Value("${product.search.invalidation-topic:product:search:invalidation}")
+    private String invalidationTopic;
+
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> shortGrams = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile int warmupFailures;
+    private volatile String lastWarmupError;
+    /**
+     * 構築で読み込み済みの最後の id（構築用のスレッドのみが更新）
+     */
+    private volatile long warmupLastId;
+    private RTopic topic;
+
+    /**
+     * 他ノードの書き込みの通知を購読する（自ノードが送信したメッセージは無視する）
+     * 
+     * メッセージ形式: {送信元ノードID}\n{商品ID1}\n{商品ID2}...
+     */
+    @PostConstruct
+    void subscribe() {
+        topic = redissonClient.getTopic(invalidationTopic, StringCodec.INSTANCE);
+        topic.addListener(String.class, (channel, message) -> {
+            String[] parts = message.split(SEPARATOR);
+            if (parts.length < 2 || nodeId.equals(parts[0])) {
+                return;
+            }
+            try {
+                refresh(Arrays.stream(parts, 1, parts.length).map(Long::valueOf).toList());
+            } catch (NumberFormatException e) {
+                log.warn("商品検索インデックスの更新通知を読み取れませんでした: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 起動完了後にバックグラウンドでインデックスを構築する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread.ofPlatform().name("product-search-index-warmup").daemon().start(this::warmUpWithRetry);
+    }
+
+    /**
+     * 構築が終わるまで、失敗するたびに間隔を倍にして（最大 {@link #MAX_RETRY_DELAY}）再試行する
+     */
+    private void warmUpWithRetry() {
+        Duration delay = INITIAL_RETRY_DELAY;
+        while (!ready) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                warmupFailures++;
+                lastWarmupError = e.getMessage();
+                log.error("商品検索インデックスの構築に失敗しました。{}秒後に再試行します: 読み込み済みの最後のid={}, 原因={}",
+                    delay.toSeconds(), warmupLastId, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                delay = delay.multipliedBy(2);
+                if (delay.compareTo(MAX_RETRY_DELAY) > 0) {
+                    delay = MAX_RETRY_DELAY;
+                }
+            }
+        }
+    }
+
+    /**
+     * 読み込み済みの最後の id の次から構築を続ける
+     */
+    void rebuild() {
+        long lastId = warmupLastId;
+        while (true) {
+            List<ProductRepository.NameView> page =
+                productRepository.findNamesAfter(lastId, PageRequest.ofSize(warmupPageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (ProductRepository.NameView view : page) {
+                add(view.getId(), view.getName());
+                lastId = view.getId();
+            }
+            warmupLastId = lastId;
+        }
+        ready = true;
+        lastWarmupError = null;
+        log.info("商品検索インデックスを構築しました: 件数={}, 失敗した回数={}", names.size(), warmupFailures);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("indexedProducts", names.size());
+        stats.put("warmupLastId", warmupLastId);
+        stats.put("warmupFailures", warmupFailures);
+        stats.put("lastWarmupError", lastWarmupError);
+        return stats;
+    }
+
+    /**
+     * コミット済みの商品名を反映し、他ノードに通知する
+     */
+    public void update(Map<Long, String> namesById) {
+        if (namesById.isEmpty()) {
+            return;
+        }
+        namesById.forEach(this::add);
+        notifyOtherNodes(new ArrayList<>(namesById.keySet()));
+    }
+
+    /**
+     * コミット済みの削除を反映し、他ノードに通知する
+     */
+    public void delete(Long id) {
+        remove(id);
+        notifyOtherNodes(List.of(id));
+    }
+
+    /**
+     * 書き込まれた商品IDを他ノードに通知する（{@value #MAX_IDS_PER_MESSAGE} 件ごとに1メッセージ）
+     */
+    private void notifyOtherNodes(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_MESSAGE) {
+            StringBuilder message = new StringBuilder(nodeId);
+            ids.subList(from, Math.min(from + MAX_IDS_PER_MESSAGE, ids.size()))
+                .forEach(id -> message.append(SEPARATOR).append(id));
+            topic.publishAsync(message.toString());
+        }
+    }
+
+    /**
+     * 他ノードで書き込まれた商品の名前を DB から読み直す（見つからない商品は削除済みとして除く）
+     */
+    void refresh(List<Long> ids) {
+        try {
+            Set<Long> missing = new HashSet<>(ids);
+            for (ProductRepository.NameView view : productRepository.findNamesByIdIn(ids)) {
+                add(view.getId(), view.getName());
+                missing.remove(view.getId());
+            }
+            missing.forEach(this::remove);
+        } catch (RuntimeException e) {
+            log.error("商品検索インデックスを更新できませんでした: 件数={}, 原因={}", ids.size(), e.getMessage());
+        }
+    }
+
+    void add(Long id, String name) {
+        remove(id);
+        if (name == null) {
+            return;
+        }
+        String normalized = normalize(name);
+        names.put(id, normalized);
+        for (String gram : gramsOf(normalized, GRAM_SIZE)) {
+            grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        for (String gram : gramsOf(normalized, SHORT_GRAM_SIZE)) {
+            shortGrams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    void remove(Long id) {
+        String normalized = names.remove(id);
+        if (normalized == null) {
+            return;
+        }
+        for (String gram : gramsOf(normalized, GRAM_SIZE)) {
+            grams.computeIfPresent(gram, (key, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+        }
+        for (String gram : gramsOf(normalized, SHORT_GRAM_SIZE)) {
+            shortGrams.computeIfPresent(gram, (key, ids) -> ids.remove(id) && ids.isEmpty() ? null : ids);
+        }
+    }
+
+    /**
+     * 商品名を検索し、順位の高い順に商品IDを返す
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query).trim();
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Comparator<Candidate> ranking = Comparator.comparingInt(Candidate::rank)
+            .thenComparingInt(candidate -> candidate.name().length())
+            .thenComparingLong(Candidate::id);
+        // 上位 limit 件のみを保持（先頭が最も順位の低い候補）
+        PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (Long id : candidates(normalized)) {
+            String name = names.get(id);
+            if (name == null || !name.contains(normalized)) {
+                continue;
+            }
+            top.add(new Candidate(id, name, rank(name, normalized)));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(top);
+        result.sort(ranking);
+        return result.stream().map(Candidate::id).toList();
+    }
+
+    private Iterable<Long> candidates(String query) {
+        if (query.length() < SHORT_GRAM_SIZE) {
+            return names.keySet();
+        }
+        if (query.length() < GRAM_SIZE) {
+            Set<Long> ids = shortGrams.get(query);
+            return ids != null ? ids : List.of();
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : gramsOf(query, GRAM_SIZE)) {
+            Set<Long> ids = grams.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = postings.get(0);
+        List<Set<Long>> others = postings.subList(1, postings.size());
+        return () -> smallest.stream()
+            .filter(id -> others.stream().allMatch(ids -> ids.contains(id)))
+            .iterator();
+    }
+
+    private static int rank(String name, String query) {
+        if (name.equals(query)) {
+            return 0;
+        }
+        if (name.startsWith(query)) {
+            return 1;
+        }
+        for (String word : wordsOf(name)) {
+            if (word.startsWith(query)) {
+                return 2;
+            }
+        }
+        return 3;
+    }
+
+    private static Set<String> gramsOf(String text, int size) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + size <= text.length(); i++) {
+            result.add(text.substring(i, i + size));
+        }
+        return result;
+    }
+
+    private static Set<String> wordsOf(String text) {
+        Set<String> result = new HashSet<>();
+        result.add(text);
+        for (String word : text.split("[\\s\\p{Punct}　]+")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private record Candidate(Long id, String name, int rank) {}
+}
@@ -1,54 +1,196 @@
 package com.endo1116.combinationSpring.product;
 
+import com.endo1116.combinationSpring.common.KeysetCursor;
+import com.endo1116.combinationSpring.common.KeysetPage;
+import com.endo1116.combinationSpring.common.KeysetScan;
+import com.endo1116.combinationSpring.config.BulkCache;
+import com.endo1116.combinationSpring.config.OrderedModuleListener;
 import com.endo1116.combinationSpring.order.OrderCreatedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 商品管理サービス
  * 
  * Redis活用：
  * 1. キャッシュ - 頻繁に読み取られる商品情報をキャッシュ
- * 2. 分散ロック - 在庫更新時の競合を防止
+ * 2. 在庫台帳 - Redis からリースした在庫をノード内で引き当て、競合を防止
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductService {
     
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    
     private final ProductRepository productRepository;
-    private final RedissonClient redissonClient;
+    private final ProductStockLedger stockLedger;
+    private final StockDecrementBatcher stockDecrementBatcher;
+    private final ProductSearchIndex searchIndex;
+    private final EntityManager entityManager;
+    private final ProductBulkWriter productBulkWriter;
+    private final Validator validator;
+    private final CacheManager cacheManager;
+    
+    @Value("${product.import.batch-size:1000}")
+    private int importBatchSize;
     
     @Transactional
     @CachePut(value = "products", key = "#result.id")
     public Product createProduct(Product product) {
         Product savedProduct = productRepository.save(product);
+        afterCommit(() -> searchIndex.update(Map.of(savedProduct.getId(), savedProduct.getName())));
         log.info("商品を作成しました: {}", savedProduct.getId());
         return savedProduct;
     }
     
+    /**
+     * 商品を一括登録する
+     * 
+     * 行ごとに検証し、正常な行を importBatchSize 件ずつ1トランザクションのJDBCバッチで登録する。
+     * 登録した商品はバッチごとに1回のパイプライン書き込みでキャッシュに反映し、
+     * 不正な行は行番号付きで結果に含める。
+     */
+    public ProductImportResult importProducts(Iterator<ProductImportRow> rows) {
+        List<ProductImportResult.RowError> errors = new ArrayList<>();
+        long imported = 0;
+        List<Product> chunk = new ArrayList<>(importBatchSize);
+        List<Long> chunkRows = new ArrayList<>(importBatchSize);
+        long rowNumber = 0;
+        
+        while (true) {
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                errors.add(new ProductImportResult.RowError(rowNumber + 1, "入力を読み取れません: " + e.getMessage()));
+                break;
+            }
+            rowNumber++;
+            
+            Product product;
+            try {
+                product = rows.next().toProduct();
+            } catch (RuntimeException e) {
+                errors.add(new ProductImportResult.RowError(rowNumber, e.getMessage()));
+                continue;
+            }
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+                errors.add(new ProductImportResult.RowError(rowNumber, message));
+                continue;
+            }
+            
+            chunk.add(product);
+            chunkRows.add(rowNumber);
+            if (chunk.size() >= importBatchSize) {
+                imported += insertImportChunk(chunk, chunkRows, errors);
+            }
+        }
+        imported += insertImportChunk(chunk, chunkRows, errors);
+        
+        log.info("商品を一括登録しました: 行数={}, 登録数={}, エラー数={}", rowNumber, imported, errors.size());
+        return new ProductImportResult(rowNumber, imported, errors);
+    }
+    
+    private int insertImportChunk(
+            List<Product> chunk,
+            List<Long> chunkRows,
+            List<ProductImportResult.RowError> errors) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        int inserted = 0;
+        try {
+            productBulkWriter.insertAll(chunk);
+            inserted = chunk.size();
+            
+            Map<Long, Product> entries = chunk.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+            Cache cache = cacheManager.getCache("products");
+            if (cache instanceof BulkCache bulkCache) {
+                bulkCache.putAll(entries);
+            } else if (cache != null) {
+                entries.forEach(cache::put);
+            }
+            Map<Long, String> names = new HashMap<>();
+            chunk.forEach(product -> names.put(product.getId(), product.getName()));
+            afterCommit(() -> searchIndex.update(names));
+        } catch (RuntimeException e) {
+            if (inserted == 0) {
+                log.error("商品の一括登録に失敗しました: {}", e.getMessage());
+                chunkRows.forEach(row -> errors.add(
+                    new ProductImportResult.RowError(row, "登録に失敗しました: " + e.getMessage())));
+            } else {
+                log.warn("一括登録した商品のキャッシュ反映に失敗しました: {}", e.getMessage());
+            }
+        }
+        chunk.clear();
+        chunkRows.clear();
+        return inserted;
+    }
+    
     @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
     
+    /**
+     * 商品名 + id のキーセットページングで商品を取得
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Product> getProductsPage(String cursor, int limit) {
+        return KeysetPage.fetch(cursor, limit, Function.identity(),
+            productRepository::findFirstPage, productRepository::findPageAfter,
+            product -> new KeysetCursor(product.getName(), product.getId()));
+    }
+    
+    /**
+     * 全商品を id 順に1件ずつ consumer に渡す（{@link KeysetScan}）
+     */
+    public void streamProducts(Consumer<Product> consumer) {
+        KeysetScan.forEachById(entityManager,
+            productRepository::findByIdGreaterThanOrderByIdAsc, Product::getId, consumer);
+    }
+    
     /**
      * 商品情報をキャッシュから取得
      * キャッシュがない場合はDBから取得してキャッシュに保存
      */
     @Transactional(readOnly = true)
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = "products", key = "#id", sync = true)
     public Product getProductById(Long id) {
         log.info("DBから商品を取得します: {}", id);
         return productRepository.findById(id)
@@ -62,7 +204,26 @@ public class ProductService {
     
     @Transactional(readOnly = true)
     public List<Product> searchProductsByName(String name) {
-        return productRepository.findByNameContaining(name);
+        return searchProductsByName(name, DEFAULT_SEARCH_LIMIT);
+    }
+    
+    /**
+     * 商品名の検索インデックスで検索し、順位順に最大 limit 件を返す
+     * limit は 1〜{@link KeysetPage#MAX_LIMIT} に丸める。インデックス構築前は LIKE 検索にフォールバックする
+     */
+    @Transactional(readOnly = true)
+    public List<Product> searchProductsByName(String name, int limit) {
+        int pageSize = KeysetPage.clampLimit(limit);
+        if (!searchIndex.isReady()) {
+            return productRepository.findByNameContaining(name).stream().limit(pageSize).toList();
+        }
+        List<Long> ids = searchIndex.search(name, pageSize);
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+            .map(products::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
     
     /**
@@ -79,6 +240,8 @@ public class ProductService {
         product.setStockQuantity(productDetails.getStockQuantity());
         product.setCategory(productDetails.getCategory());
         Product updatedProduct = productRepository.save(product);
+        afterCommit(() -> stockLedger.reset(id));
+        afterCommit(() -> searchIndex.update(Map.of(id, updatedProduct.getName())));
         log.info("商品を更新しました: {}", id);
         return updatedProduct;
     }
@@ -90,62 +253,73 @@ public class ProductService {
     @CacheEvict(value = "products", key = "#id")
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        afterCommit(() -> stockLedger.reset(id));
+        afterCommit(() -> searchIndex.delete(id));
         log.info("商品を削除しました: {}", id);
     }
     
     /**
      * 注文作成イベントを受け取り、在庫を減らす
      * 
-     * Redisの分散ロックを使用して、同時に複数の注文が来ても在庫の整合性を保証
+     * 注文ごとの分散ロックは取得せず、ノードローカルの在庫台帳で引き当てる
      * 
      * 処理フロー：
-     * 1. 商品IDに基づいた分散ロックを取得（最大10秒待機）
-     * 2. ロックを取得できたら在庫を更新
-     * 3. キャッシュをクリア
-     * 4. ロックを解放
+     * 1. 注文作成時に引き当て済みでなければ、台帳のローカル在庫（Redisからのリース分）をアトミックに減らす
+     * 2. 不足時のみストライプロック下で Redis からリースを補充
+     * 3. DBへの反映は短い時間窓でまとめた条件付きUPDATEで行い、キャッシュをクリア
+     * 
+     * DB への反映は待たずに Future を返す。レーンはすぐに次の注文を処理でき、同じ時間窓の注文が1回の UPDATE にまとまる。
+     * イベント発行は反映のコミット後に完了となる。リスナーのトランザクション（接続）は反映を待つ間保持しない。
+     * 
+     * ここで引き当てた在庫は、反映のトランザクションが失敗した場合に台帳へ戻す（再送時に引き当て直すため）。
+     * 
+     * 注文作成時に引き当て済み（クライアントには 201 を返却済み）なのに DB の在庫が足りず却下された場合は、
+     * 台帳と DB の在庫の不整合として記録し、イベントは完了とする（再送しても DB の在庫は増えないため）。
+     * 却下した数量は精算済みで、台帳の在庫カウンタは次回の補正で DB に合わせられる。
+     * 
+     * 同じ注文のイベントが再送された場合（レーンで待機中に再送された場合を含む）、バッチ処理が注文IDで重複を判定し、
+     * 在庫は1回だけ減らす。
      */
-    @ApplicationModuleListener
-    @CacheEvict(value = "products", key = "#event.productId")
-    public void handleOrderCreated(OrderCreatedEvent event) {
+    @OrderedModuleListener(key = "productId")
+    public CompletableFuture<Void> handleOrderCreated(OrderCreatedEvent event) {
         log.info("OrderCreatedEventを受信しました: {}", event);
         
-        String lockKey = "product:stock:lock:" + event.getProductId();
-        RLock lock = redissonClient.getLock(lockKey);
-        
-        try {
-            // 分散ロックを取得（最大10秒待機、ロック保持時間30秒）
-            boolean isLocked = lock.tryLock(10, 30, TimeUnit.SECONDS);
-            
-            if (!isLocked) {
-                throw new IllegalStateException("在庫更新のロック取得に失敗しました: " + event.getProductId());
-            }
-            
-            log.info("分散ロックを取得しました: {}", lockKey);
-            
-            // キャッシュをバイパスしてDBから最新データを取得
-            Product product = productRepository.findById(event.getProductId())
-                .orElseThrow(() -> new IllegalArgumentException("商品が見つかりません: " + event.getProductId()));
-            
-            product.decreaseStock(event.getQuantity());
-            productRepository.save(product);
-            
-            log.info("商品の在庫を更新しました: 商品ID={}, 新しい在庫数={}", 
-                product.getId(), product.getStockQuantity());
-                
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("ロック取得中に中断されました: {}", e.getMessage());
-            throw new IllegalStateException("在庫更新処理が中断されました", e);
-        } catch (Exception e) {
-            log.error("在庫更新に失敗しました: {}", e.getMessage());
-            throw e;
-        } finally {
-            // ロックを保持している場合のみ解放
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-                log.info("分散ロックを解放しました: {}", lockKey);
-            }
+        boolean reservedHere = !event.isStockReserved();
+        if (reservedHere && !stockLedger.tryReserve(event.getProductId(), event.getQuantity())) {
+            log.error("在庫更新に失敗しました: 商品ID={}, 要求数={}", event.getProductId(), event.getQuantity());
+            throw new IllegalStateException(
+                String.format("在庫が不足しています。商品ID: %d, 要求数: %d",
+                    event.getProductId(), event.getQuantity())
+            );
         }
+        
+        return stockDecrementBatcher.submit(event.getOrderId(), event.getProductId(), event.getQuantity())
+            .whenComplete((applied, e) -> {
+                if (e != null) {
+                    log.error("在庫更新に失敗しました: {}", e.getMessage());
+                    // 在庫不足による却下は精算済みのため、トランザクションの失敗時のみ戻す
+                    if (reservedHere && !(e instanceof StockDecrementRejectedException)) {
+                        stockLedger.release(event.getProductId(), event.getQuantity());
+                    }
+                } else if (!applied) {
+                    log.info("反映済みの注文のため在庫を更新しません: 注文ID={}", event.getOrderId());
+                    if (reservedHere) {
+                        stockLedger.release(event.getProductId(), event.getQuantity());
+                    }
+                } else {
+                    log.info("商品の在庫を更新しました: 商品ID={}, 数量={}", event.getProductId(), event.getQuantity());
+                }
+            })
+            .<Void>thenApply(applied -> null)
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (event.isStockReserved() && cause instanceof StockDecrementRejectedException) {
+                    log.error("在庫の不整合: 引き当て済みの注文の在庫をDBに反映できませんでした（注文は確定済み）: "
+                        + "注文ID={}, 商品ID={}, 数量={}", event.getOrderId(), event.getProductId(), event.getQuantity());
+                    return null;
+                }
+                throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+            });
     }
     
     /**
@@ -156,5 +330,69 @@ public class ProductService {
         Product product = getProductById(productId);
         return product.getStockQuantity() >= requiredQuantity;
     }
-}
+    
+    /**
+     * 複数商品の在庫をまとめて確認する
+     * 
+     * 1. キャッシュを一括取得（L1 → L2 の MGET 1往復）
+     * 2. キャッシュにない商品だけを findAllById で1回のクエリで取得
+     * 3. 取得した商品をパイプライン1往復でキャッシュに書き戻す
+     */
+    public List<StockAvailability> checkStockAvailability(List<StockCheckItem> items) {
+        for (StockCheckItem item : items) {
+            if (item.productId() == null || item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("商品IDと1以上の数量を指定してください: " + item);
+            }
+        }
+        Set<Long> productIds = items.stream()
+            .map(StockCheckItem::productId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        
+        Map<Long, Product> products = new HashMap<>();
+        Cache cache = cacheManager.getCache("products");
+        if (cache instanceof BulkCache bulkCache) {
+            bulkCache.getAll(productIds).forEach((key, value) -> products.put((Long) key, (Product) value));
+        }
+        
+        List<Long> misses = productIds.stream()
+            .filter(id -> !products.containsKey(id))
+            .toList();
+        if (!misses.isEmpty()) {
+            Map<Long, Product> loaded = productRepository.findAllById(misses).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+            products.putAll(loaded);
+            if (cache instanceof BulkCache bulkCache) {
+                bulkCache.putAll(loaded);
+            }
+        }
+        
+        return items.stream()
+            .map(item -> {
+                Product product = products.get(item.productId());
+                Integer stock = product != null ? product.getStockQuantity() : null;
+                return new StockAvailability(
+                    item.productId(),
+                    item.quantity(),
+                    stock,
+                    stock != null && stock >= item.quantity()
+                );
+            })
+            .toList();
+    }
 
+    /**
+     * 現在のトランザクションのコミット後に実行する（トランザクション外では即時に実行する）
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
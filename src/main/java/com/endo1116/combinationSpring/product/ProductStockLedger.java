@@ -0,0 +1,555 @@
+package com.endo1116.combinationSpring.product;
+
+import com.endo1116.combinationSpring.order.StockReservation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucket;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ノードローカルの在庫予約台帳
+ *
+ * 注文ごとに Redisson の分散ロックを取得する代わりに、Redis 上の在庫カウンタから
+ * 一定数（リース）をまとめて借り受け、ノード内ではアトミックカウンタで在庫を減らす。
+ *
+ * - 在庫の引き当ては商品ごとの AtomicInteger に対する CAS のみで完結する
+ * - リースの補充だけをストライプロックで直列化し、Redis への往復はリース単位に抑える
+ * - DB への在庫反映は {@link StockDecrementBatcher} が非同期にまとめて行う
+ *
+ * リースは借りたノードに留まらないようにする：
+ * - Redis の残りがリース数より少ない商品は、注文に必要な数だけを借りる
+ * - 引き当てに失敗したら手元の未使用分をすぐに返却する
+ * - 一定時間（idle-return-after）使われなかった未使用分は定期的に返却する
+ *
+ * ノードごとの未使用分は product:stock:held:{id} に記録する（引き当て・取り消しの反映は非同期）。
+ * ハートビートが途絶えたノードの未使用分は、{@link StockCounterReconciler} が {@link #reclaimAbandoned} で
+ * available に戻す。自ノードのハートビートを更新できていない間は、回収と二重に使わないよう手元の未使用分を使わない。
+ * 回収のスクリプトはノードのキーを組み立てて参照するため、単一の Redis（クラスタ以外）を前提とする。
+ *
+ * Redis 上のキー：
+ * - product:stock:available:{id}   各ノードにリースしていない在庫数（未初期化の場合は DB在庫 - outstanding で初期化）
+ * - product:stock:outstanding:{id} リース済みで DB にまだ反映されていない数
+ * - product:stock:settled:{id}     DB への反映（精算）の通番
+ * - product:stock:held:{id}        ノードIDごとの未使用のリース数（ハッシュ）
+ * - product:stock:node:{nodeId}    ノードのハートビート（TTL 付き）
+ *
+ * available + outstanding = DB在庫 を不変条件とし、{@link StockCounterReconciler} が定期的に補正する。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductStockLedger implements StockReservation {
+
+    static final String AVAILABLE_KEY_PREFIX = "product:stock:available:";
+    static final String OUTSTANDING_KEY_PREFIX = "product:stock:outstanding:";
+    static final String SETTLED_KEY_PREFIX = "product:stock:settled:";
+    static final String HELD_KEY_PREFIX = "product:stock:held:";
+    static final String NODE_KEY_PREFIX = "product:stock:node:";
+
+    /**
+     * Redis カウンタから最大 ARGV[1] 個をリースし、リース数を outstanding とノード ARGV[3] の未使用分に加算する。
+     * 残りが ARGV[1] より少ない場合は ARGV[4]（注文に必要な数）だけをリースする。
+     * カウンタが存在しない場合は ARGV[2]（DB在庫）- outstanding で初期化し、ARGV[2] が負数なら -1 を返す。
+     */
+    private static final String LEASE_SCRIPT = """
+        if redis.call('exists', KEYS[1]) == 0 then
+            if tonumber(ARGV[2]) < 0 then
+                return -1
+            end
+            local outstanding = tonumber(redis.call('get', KEYS[2]) or '0')
+            redis.call('set', KEYS[1], math.max(tonumber(ARGV[2]) - outstanding, 0))
+            redis.call('set', KEYS[2], outstanding)
+        end
+        local available = tonumber(redis.call('get', KEYS[1]))
+        local requested = tonumber(ARGV[1])
+        if available < requested then
+            requested = tonumber(ARGV[4])
+        end
+        local leased = math.min(available, requested)
+        if leased > 0 then
+            redis.call('decrby', KEYS[1], leased)
+            redis.call('incrby', KEYS[2], leased)
+            redis.call('hincrby', KEYS[3], ARGV[3], leased)
+        else
+            leased = 0
+        end
+        return leased
+        """;
+
+    /**
+     * ノード ARGV[2] の未使用のリース ARGV[1] 個を available に戻す。
+     * ノードのハートビート（KEYS[4]）が切れている場合は回収に任せて何もせず -1 を返す。
+     */
+    private static final String RETURN_SCRIPT = """
+        if redis.call('exists', KEYS[4]) == 0 then
+            return -1
+        end
+        if redis.call('exists', KEYS[1]) == 1 then
+            redis.call('incrby', KEYS[1], ARGV[1])
+        end
+        redis.call('decrby', KEYS[2], ARGV[1])
+        redis.call('hincrby', KEYS[3], ARGV[2], -tonumber(ARGV[1]))
+        return 0
+        """;
+
+    /**
+     * ノード ARGV[1] の未使用分を ARGV[2] だけ増減する。
+     * 回収後に取り消された引き当ても記録し、次の回収（ハートビート失効時の自ノード分を含む）で available に戻す。
+     */
+    private static final String HELD_SCRIPT = """
+        return redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])
+        """;
+
+    /**
+     * ノード ARGV[1] の未使用分（回収されずに残っている分）を available に戻す
+     */
+    private static final String RECLAIM_NODE_SCRIPT = """
+        local units = tonumber(redis.call('hget', KEYS[3], ARGV[1]) or '0')
+        if units > 0 then
+            if redis.call('exists', KEYS[1]) == 1 then
+                redis.call('incrby', KEYS[1], units)
+            end
+            redis.call('decrby', KEYS[2], units)
+        end
+        redis.call('hdel', KEYS[3], ARGV[1])
+        return units
+        """;
+
+    /**
+     * ハートビート（ARGV[1] + ノードID）が切れたノードの未使用分を available に戻し、回収した数を返す
+     */
+    private static final String RECLAIM_SCRIPT = """
+        local reclaimed = 0
+        local held = redis.call('hgetall', KEYS[3])
+        for i = 1, #held, 2 do
+            local node = held[i]
+            if redis.call('exists', ARGV[1] .. node) == 0 then
+                local units = tonumber(held[i + 1])
+                if units > 0 then
+                    if redis.call('exists', KEYS[1]) == 1 then
+                        redis.call('incrby', KEYS[1], units)
+                    end
+                    redis.call('decrby', KEYS[2], units)
+                    reclaimed = reclaimed + units
+                end
+                redis.call('hdel', KEYS[3], node)
+            end
+        end
+        return reclaimed
+        """;
+
+    /**
+     * available を DB在庫（ARGV[1]）- outstanding に補正する。
+     * DB在庫の読み取り後に精算が行われた場合（通番が ARGV[2] と異なる）は補正せず nil を返す。
+     * 補正前の available - 補正後の available を返す。
+     */
+    private static final String RECONCILE_SCRIPT = """
+        if redis.call('exists', KEYS[1]) == 0 then
+            return nil
+        end
+        if tonumber(redis.call('get', KEYS[3]) or '0') ~= tonumber(ARGV[2]) then
+            return nil
+        end
+        local outstanding = tonumber(redis.call('get', KEYS[2]) or '0')
+        local current = tonumber(redis.call('get', KEYS[1]))
+        local target = math.max(tonumber(ARGV[1]) - outstanding, 0)
+        if current ~= target then
+            redis.call('set', KEYS[1], target)
+        end
+        return current - target
+        """;
+
+    private final RedissonClient redissonClient;
+    private final ProductRepository productRepository;
+
+    @Value("${product.stock.ledger.lease-size:50}")
+    private int leaseSize;
+
+    @Value("${product.stock.ledger.stripes:64}")
+    private int stripeCount;
+
+    @Value("${product.stock.ledger.idle-return-after:10s}")
+    private Duration idleReturnAfter;
+
+    @Value("${product.stock.ledger.heartbeat-ttl:30s}")
+    private Duration heartbeatTtl;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<Long, Quota> localQuota = new ConcurrentHashMap<>();
+    private ReentrantLock[] stripes;
+    private final ReentrantLock heartbeatLock = new ReentrantLock();
+    /**
+     * 手元の未使用分を使ってよい期限（ハートビートの更新成功から heartbeat-ttl の半分、System.nanoTime 基準）
+     */
+    private volatile long quotaValidUntil;
+
+    @PostConstruct
+    void initStripes() {
+        stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        quotaValidUntil = System.nanoTime();
+    }
+
+    /**
+     * 在庫を引き当てる
+     *
+     * @return 引き当てに成功した場合 true、在庫不足の場合 false
+     */
+    @Override
+    public boolean tryReserve(Long productId, int quantity) {
+        if (quotaUsable()) {
+            Quota quota = quotaFor(productId);
+            if (quota.tryDecrement(quantity)) {
+                recordHeld(productId, -quantity);
+                return true;
+            }
+        }
+
+        ensureHeartbeat();
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            if (!quotaUsable()) {
+                throw new IllegalStateException("在庫台帳のハートビートを更新できません: 商品ID=" + productId);
+            }
+            // 他スレッドが補充済み、または reset で作り直された可能性があるため取り直して再試行
+            Quota quota = quotaFor(productId);
+            if (quota.tryDecrement(quantity)) {
+                recordHeld(productId, -quantity);
+                return true;
+            }
+            int shortage = quantity - quota.units.get();
+            long leased = lease(productId, Math.max(leaseSize, shortage), shortage);
+            quota.units.addAndGet((int) leased);
+            log.debug("在庫リースを補充しました: 商品ID={}, リース数={}", productId, leased);
+
+            if (quota.tryDecrement(quantity)) {
+                recordHeld(productId, -quantity);
+                return true;
+            }
+            // 在庫不足：手元に残った分は他のノードが使えるように返却する
+            returnQuota(productId, quota);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 引き当てを取り消し、ローカルのリースに戻す（Redis への往復なし）
+     */
+    @Override
+    public void release(Long productId, int quantity) {
+        Quota quota = quotaFor(productId);
+        quota.lastUsed = System.nanoTime();
+        quota.units.addAndGet(quantity);
+        recordHeld(productId, quantity);
+    }
+
+    /**
+     * DB への反映（成功・在庫不足による却下とも）が終わった数量を outstanding から差し引く
+     *
+     * 精算の通番を先に進めてから outstanding を減らし、補正処理が古い DB在庫で上書きしないようにする。
+     * 商品ごとのコマンドは RBatch で1往復にまとめる。
+     */
+    public void settle(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        RBatch batch = redissonClient.createBatch();
+        quantities.forEach((productId, quantity) -> {
+            batch.getAtomicLong(SETTLED_KEY_PREFIX + productId).incrementAndGetAsync();
+            batch.getAtomicLong(OUTSTANDING_KEY_PREFIX + productId).addAndGetAsync(-quantity);
+        });
+        batch.execute();
+    }
+
+    /**
+     * このノードが扱った商品ID
+     */
+    public Set<Long> trackedProductIds() {
+        return Set.copyOf(localQuota.keySet());
+    }
+
+    /**
+     * 商品ごとの精算の通番
+     */
+    public Map<Long, Long> settledSequences(Collection<Long> productIds) {
+        RBatch batch = redissonClient.createBatch();
+        Map<Long, RFuture<Long>> futures = new HashMap<>();
+        productIds.forEach(productId ->
+            futures.put(productId, batch.getAtomicLong(SETTLED_KEY_PREFIX + productId).getAsync()));
+        batch.execute();
+
+        Map<Long, Long> sequences = new HashMap<>();
+        futures.forEach((productId, future) -> sequences.put(productId, future.toCompletableFuture().join()));
+        return sequences;
+    }
+
+    /**
+     * Redis カウンタを DB在庫 - outstanding に補正する
+     *
+     * @param settledSequence DB在庫を読み取る前に取得した精算の通番
+     * @return 補正前と補正後の差（補正不要・スキップ時は 0）
+     */
+    public long reconcile(Long productId, int stockQuantity, long settledSequence) {
+        List<Object> keys = List.of(
+            AVAILABLE_KEY_PREFIX + productId,
+            OUTSTANDING_KEY_PREFIX + productId,
+            SETTLED_KEY_PREFIX + productId);
+        Long drift = redissonClient.getScript(StringCodec.INSTANCE).eval(
+            RScript.Mode.READ_WRITE, RECONCILE_SCRIPT, RScript.ReturnType.INTEGER,
+            keys, String.valueOf(stockQuantity), String.valueOf(settledSequence));
+        return drift != null ? drift : 0;
+    }
+
+    /**
+     * ハートビートが切れたノードの未使用のリースを available に戻す
+     *
+     * @return 商品ごとの回収数（回収しなかった商品は含まない）
+     */
+    public Map<Long, Long> reclaimAbandoned(Collection<Long> productIds) {
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        Map<Long, Long> reclaimed = new HashMap<>();
+        for (Long productId : productIds) {
+            Long units = script.eval(RScript.Mode.READ_WRITE, RECLAIM_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(AVAILABLE_KEY_PREFIX + productId, OUTSTANDING_KEY_PREFIX + productId, HELD_KEY_PREFIX + productId),
+                NODE_KEY_PREFIX);
+            if (units != null && units > 0) {
+                reclaimed.put(productId, units);
+            }
+        }
+        return reclaimed;
+    }
+
+    /**
+     * 商品の在庫が直接更新・削除された場合に、ローカルのリースを返却して Redis の available を破棄する
+     * （次回の引き当て時に DB在庫 - outstanding で再初期化される）
+     *
+     * 更新のコミット後に呼ぶ。引き当て中・DB に未反映の数量は outstanding に残るため、再初期化後も二重に数えない。
+     * 並行して古いリースから引き当てるスレッドとは、未使用分の取り出し（getAndSet）で競合を解決する。
+     */
+    public void reset(Long productId) {
+        ReentrantLock lock = stripeFor(productId);
+        lock.lock();
+        try {
+            Quota quota = localQuota.remove(productId);
+            if (quota != null) {
+                returnQuota(productId, quota);
+            }
+            redissonClient.getKeys().delete(AVAILABLE_KEY_PREFIX + productId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ハートビートを更新し、一定時間使われていない未使用のリースを返却する
+     */
+    @Scheduled(fixedDelayString = "${product.stock.ledger.idle-check-interval-ms:5000}")
+    public void returnIdleLeases() {
+        try {
+            ensureHeartbeat();
+        } catch (RuntimeException e) {
+            log.error("在庫台帳のハートビートを更新できませんでした: {}", e.getMessage());
+            return;
+        }
+        long idleBefore = System.nanoTime() - idleReturnAfter.toNanos();
+        localQuota.forEach((productId, quota) -> {
+            if (quota.units.get() <= 0 || quota.lastUsed - idleBefore > 0) {
+                return;
+            }
+            ReentrantLock lock = stripeFor(productId);
+            lock.lock();
+            try {
+                int returned = returnQuota(productId, quota);
+                if (returned > 0) {
+                    log.debug("未使用の在庫リースを返却しました: 商品ID={}, 数量={}", productId, returned);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 停止時に未使用のリースを Redis に返却する
+     */
+    @PreDestroy
+    void shutdown() {
+        localQuota.forEach((productId, quota) -> {
+            try {
+                returnQuota(productId, quota);
+            } catch (RuntimeException e) {
+                // 返却できなかった分はハートビートの失効後に他のノードが回収する
+                log.warn("在庫リースを返却できませんでした: 商品ID={}, 原因={}", productId, e.getMessage());
+            }
+        });
+    }
+
+    private boolean quotaUsable() {
+        return quotaValidUntil - System.nanoTime() > 0;
+    }
+
+    /**
+     * ハートビートを heartbeat-ttl で更新する（期限の半分を過ぎた場合のみ Redis に書き込む）
+     *
+     * ストライプロックを保持せずに呼ぶ。ハートビートが失効していた場合は、他のノードに回収された可能性があるため
+     * 手元の未使用分を破棄し、回収されずに残っている自ノードの記録を available に戻してから更新する。
+     */
+    private void ensureHeartbeat() {
+        if (quotaValidUntil - System.nanoTime() > heartbeatTtl.toNanos() / 4) {
+            return;
+        }
+        heartbeatLock.lock();
+        try {
+            long now = System.nanoTime();
+            if (quotaValidUntil - now > heartbeatTtl.toNanos() / 4) {
+                return;
+            }
+            RBucket<String> heartbeat = redissonClient.getBucket(NODE_KEY_PREFIX + nodeId, StringCodec.INSTANCE);
+            if (!heartbeat.setIfExists("1", heartbeatTtl)) {
+                abandonLocalQuota();
+                heartbeat.set("1", heartbeatTtl);
+            }
+            quotaValidUntil = now + heartbeatTtl.toNanos() / 2;
+        } finally {
+            heartbeatLock.unlock();
+        }
+    }
+
+    private void abandonLocalQuota() {
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        localQuota.forEach((productId, quota) -> {
+            ReentrantLock lock = stripeFor(productId);
+            lock.lock();
+            try {
+                int dropped = quota.units.getAndSet(0);
+                script.eval(RScript.Mode.READ_WRITE, RECLAIM_NODE_SCRIPT, RScript.ReturnType.INTEGER,
+                    List.of(AVAILABLE_KEY_PREFIX + productId, OUTSTANDING_KEY_PREFIX + productId,
+                        HELD_KEY_PREFIX + productId),
+                    nodeId);
+                if (dropped > 0) {
+                    log.warn("ハートビートが失効していたため在庫リースを破棄しました: 商品ID={}, 数量={}", productId, dropped);
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * 未使用のリースをすべて Redis に返却する（ストライプロックを保持して呼ぶ）
+     *
+     * @return 返却した数量
+     */
+    private int returnQuota(Long productId, Quota quota) {
+        int unused = quota.units.getAndSet(0);
+        if (unused <= 0) {
+            if (unused < 0) {
+                quota.units.addAndGet(unused);
+            }
+            return 0;
+        }
+        try {
+            Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, RETURN_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(AVAILABLE_KEY_PREFIX + productId, OUTSTANDING_KEY_PREFIX + productId,
+                    HELD_KEY_PREFIX + productId, NODE_KEY_PREFIX + nodeId),
+                String.valueOf(unused), nodeId);
+            if (result != null && result < 0) {
+                log.warn("ハートビートが切れていたため、在庫リースは回収に任せます: 商品ID={}, 数量={}", productId, unused);
+            }
+            return unused;
+        } catch (RuntimeException e) {
+            quota.units.addAndGet(unused);
+            throw e;
+        }
+    }
+
+    /**
+     * 自ノードの未使用分の増減を Redis に非同期で反映する（引き当ての応答は待たない）
+     */
+    private void recordHeld(Long productId, int delta) {
+        redissonClient.getScript(StringCodec.INSTANCE).evalAsync(
+                RScript.Mode.READ_WRITE, HELD_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(HELD_KEY_PREFIX + productId), nodeId, String.valueOf(delta))
+            .whenComplete((result, e) -> {
+                if (e != null) {
+                    log.warn("在庫リースの未使用分を記録できませんでした: 商品ID={}, 原因={}", productId, e.getMessage());
+                }
+            });
+    }
+
+    private Quota quotaFor(Long productId) {
+        return localQuota.computeIfAbsent(productId, id -> new Quota());
+    }
+
+    private long lease(Long productId, int requested, int minimum) {
+        List<Object> keys = List.of(
+            AVAILABLE_KEY_PREFIX + productId, OUTSTANDING_KEY_PREFIX + productId, HELD_KEY_PREFIX + productId);
+        RScript script = redissonClient.getScript(StringCodec.INSTANCE);
+        Long leased = script.eval(RScript.Mode.READ_WRITE, LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+            keys, String.valueOf(requested), "-1", nodeId, String.valueOf(minimum));
+        if (leased != null && leased >= 0) {
+            return leased;
+        }
+
+        // カウンタ未初期化のため、DB の在庫数で初期化する
+        Product product = productRepository.findById(productId)
+            .orElseThrow(() -> new IllegalArgumentException("商品が見つかりません: " + productId));
+        leased = script.eval(RScript.Mode.READ_WRITE, LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+            keys, String.valueOf(requested), String.valueOf(product.getStockQuantity()), nodeId, String.valueOf(minimum));
+        return leased != null ? leased : 0L;
+    }
+
+    private ReentrantLock stripeFor(Long productId) {
+        return stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+    }
+
+    /**
+     * ノードローカルの未使用のリース
+     */
+    private static final class Quota {
+
+        private final AtomicInteger units = new AtomicInteger();
+        /**
+         * 最後に引き当て・取り消しに使った時刻（System.nanoTime）
+         */
+        private volatile long lastUsed = System.nanoTime();
+
+        boolean tryDecrement(int quantity) {
+            lastUsed = System.nanoTime();
+            int current;
+            do {
+                current = units.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!units.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.endo1116.combinationSpring.product;
+
+/**
+ * 在庫確認の結果
+ * 
+ * @param stockQuantity 現在の在庫数（商品が存在しない場合は null）
+ * @param available 要求数を満たす在庫がある場合 true
+ */
+public record StockAvailability(
+    Long productId,
+    int requestedQuantity,
+    Integer stockQuantity,
+    boolean available
+) {}
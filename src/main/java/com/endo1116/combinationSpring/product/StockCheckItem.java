@@ -0,0 +1,6 @@
+package com.endo1116.combinationSpring.product;
+
+/**
+ * 在庫確認の要求行
+ */
+public record StockCheckItem(Long productId, Integer quantity) {}
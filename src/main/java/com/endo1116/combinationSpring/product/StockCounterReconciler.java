@@ -0,0 +1,53 @@
+package com.endo1116.combinationSpring.product;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis の在庫カウンタを products.stock_quantity に合わせて定期的に補正する
+ * 
+ * available = DB在庫 - outstanding となるように補正する（{@link ProductStockLedger} 参照）。
+ * 対象はこのノードが扱った商品のみで、精算の通番を DB在庫の読み取り前に取得しておき、
+ * 読み取り後に精算が行われた商品は次回に回す。
+ * 
+ * 補正の前に、ハートビートが切れたノード（停止・クラッシュしたノード）の未使用のリースを回収する。
+ * 回収しないと outstanding に残り続け、補正しても available に戻らない。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockCounterReconciler {
+
+    private final ProductStockLedger stockLedger;
+    private final ProductRepository productRepository;
+
+    @Scheduled(fixedDelayString = "${product.stock.reconcile.interval-ms:30000}")
+    public void reconcile() {
+        Set<Long> productIds = stockLedger.trackedProductIds();
+        if (productIds.isEmpty()) {
+            return;
+        }
+        try {
+            stockLedger.reclaimAbandoned(productIds).forEach((productId, units) ->
+                log.warn("停止したノードの在庫リースを回収しました: 商品ID={}, 数量={}", productId, units));
+            Map<Long, Long> sequences = stockLedger.settledSequences(productIds);
+            int corrected = 0;
+            for (ProductRepository.StockView stock : productRepository.findStockQuantitiesByIdIn(productIds)) {
+                long drift = stockLedger.reconcile(
+                    stock.getId(), stock.getStockQuantity(), sequences.getOrDefault(stock.getId(), 0L));
+                if (drift != 0) {
+                    corrected++;
+                    log.warn("在庫カウンタを補正しました: 商品ID={}, 差分={}", stock.getId(), drift);
+                }
+            }
+            log.debug("在庫カウンタを照合しました: 商品数={}, 補正数={}", productIds.size(), corrected);
+        } catch (RuntimeException e) {
+            log.error("在庫カウンタの照合に失敗しました: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.endo1116.combinationSpring.product;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在庫減算のバッチ処理
+ * 
+ * 短い時間窓の間に届いた在庫減算要求を商品IDごとにまとめ、
+ * 商品ごとに1回の条件付きUPDATE（stock_quantity >= 減算数）で DB に反映する。
+ * 
+ * - 時間窓内の全商品を1トランザクションで書き込み、SQLiteへの書き込み回数を削減
+ * - まとめた数量で在庫が足りない場合は、到着順に引き当て可能な要求だけを受け付け、
+ *   在庫をマイナスにする個々の要求は失敗として呼び出し元に返す
+ * - コミットされた数量と在庫不足で却下した数量だけを {@link ProductStockLedger#settle} で精算する。
+ *   トランザクションが失敗した場合は精算せず、呼び出し元の再試行で反映されたときに精算する
+ *   （失敗時に精算すると再試行で二重に精算され、outstanding が実際より少なくなる）
+ * - 反映した注文IDを同じトランザクションで stock_decrement_orders に記録し、同じ注文の2回目以降の要求
+ *   （イベントの再送・レーンで待機中の再送）は減算せずに成功として返す
+ * 
+ * 時間窓の処理は専用スレッドで行い、スケジューラの他の定期処理（アーカイブ・Outbox の保守など）が
+ * 長引いても在庫の反映と注文イベントの完了を止めない。
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockDecrementBatcher {
+
+    private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
+    private final PlatformTransactionManager transactionManager;
+    private final ProductStockLedger stockLedger;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${product.stock.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${product.stock.batch.window-ms:20}")
+    private long windowMillis;
+
+    /**
+     * 反映済みの注文IDを保持する期間（これより後に届いた同じ注文の再送は新規として扱う）
+     */
+    @Value("${product.stock.batch.applied-retention:7d}")
+    private Duration appliedRetention;
+
+    private final BlockingQueue<PendingDecrement> queue = new LinkedBlockingQueue<>();
+    /**
+     * Future の完了後の処理（イベント発行の完了登録など）をスケジューラのスレッドで実行しないための実行先
+     */
+    private final ExecutorService completionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Thread drainer;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        createAppliedOrdersTable();
+        running = true;
+        drainer = Thread.ofPlatform().name("stock-decrement-batcher").daemon(true).start(this::drainLoop);
+    }
+
+    private void createAppliedOrdersTable() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS stock_decrement_orders (
+                order_id INTEGER PRIMARY KEY,
+                product_id INTEGER NOT NULL,
+                quantity INTEGER NOT NULL,
+                applied_at INTEGER NOT NULL
+            )
+            """);
+        jdbcTemplate.execute(
+            "CREATE INDEX IF NOT EXISTS idx_stock_decrement_orders_applied_at ON stock_decrement_orders (applied_at)");
+    }
+
+    /**
+     * 在庫減算を次の時間窓に登録する
+     * 
+     * @param orderId 注文ID（null の場合は重複を判定しない）
+     * @return DBへの反映がコミットされたら完了する Future。反映した場合は true、同じ注文を反映済みの場合は false。
+     *         在庫不足の場合は {@link StockDecrementRejectedException}、トランザクションの失敗時はその例外で失敗する。
+     *         Future はバッチ処理とは別のスレッドで完了させる
+     */
+    public CompletableFuture<Boolean> submit(Long orderId, Long productId, int quantity) {
+        PendingDecrement pending = new PendingDecrement(orderId, productId, quantity, new CompletableFuture<>());
+        queue.add(pending);
+        return pending.future();
+    }
+
+    /**
+     * 最初の要求が届いてから時間窓（window-ms）の間に届いた要求をまとめて反映する
+     */
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingDecrement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                if (running) {
+                    Thread.sleep(windowMillis);
+                }
+                List<PendingDecrement> batch = new ArrayList<>();
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                drain(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("在庫のバッチ反映で予期しないエラーが発生しました: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void drain(List<PendingDecrement> batch) {
+        List<PendingDecrement> accepted = new ArrayList<>();
+        List<PendingDecrement> rejected = new ArrayList<>();
+        List<PendingDecrement> duplicates = new ArrayList<>();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Map<Long, List<PendingDecrement>> byProduct = new LinkedHashMap<>();
+                for (PendingDecrement pending : claimOrders(batch, duplicates)) {
+                    byProduct.computeIfAbsent(pending.productId(), id -> new ArrayList<>()).add(pending);
+                }
+                byProduct.forEach((productId, requests) -> apply(productId, requests, accepted, rejected));
+                unclaimOrders(rejected);
+            });
+        } catch (RuntimeException e) {
+            log.error("在庫のバッチ反映に失敗しました: 件数={}, {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> completionExecutor.execute(() -> pending.future().completeExceptionally(e)));
+            return;
+        }
+        Map<Long, Integer> settled = new LinkedHashMap<>();
+        accepted.forEach(pending -> settled.merge(pending.productId(), pending.quantity(), Integer::sum));
+        rejected.forEach(pending -> settled.merge(pending.productId(), pending.quantity(), Integer::sum));
+        settle(settled);
+
+        Cache cache = cacheManager.getCache("products");
+        if (cache != null) {
+            settled.keySet().forEach(cache::evict);
+        }
+        accepted.forEach(pending -> completionExecutor.execute(() -> pending.future().complete(true)));
+        duplicates.forEach(pending -> completionExecutor.execute(() -> pending.future().complete(false)));
+        rejected.forEach(pending -> completionExecutor.execute(() -> pending.future().completeExceptionally(
+            new StockDecrementRejectedException(pending.productId(), pending.quantity()))));
+        log.info("在庫をバッチ反映しました: 要求数={}, 商品数={}, 却下数={}, 重複数={}",
+            batch.size(), settled.size(), rejected.size(), duplicates.size());
+    }
+
+    /**
+     * 保持期間を過ぎた反映済みの注文IDを削除する
+     */
+    @Scheduled(fixedDelayString = "${product.stock.batch.applied-purge-interval-ms:3600000}")
+    public void purgeAppliedOrders() {
+        long cutoff = System.currentTimeMillis() - appliedRetention.toMillis();
+        int deleted = jdbcTemplate.update("DELETE FROM stock_decrement_orders WHERE applied_at < ?", cutoff);
+        if (deleted > 0) {
+            log.info("反映済みの注文IDを削除しました: 件数={}", deleted);
+        }
+    }
+
+    /**
+     * 登録済みの要求を反映し終えてから停止する
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        if (drainer != null) {
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        completionExecutor.close();
+    }
+
+    /**
+     * 注文IDを反映済みとして記録し、記録できた（初めての）要求を返す
+     * 
+     * 既に記録済みの注文（過去のバッチ・同じバッチ内の先行する要求）は duplicates に振り分ける。
+     * 他ノードが同時に同じ注文を記録した場合も、SQLite の書き込みは直列化されるため片方だけが記録できる。
+     */
+    private List<PendingDecrement> claimOrders(List<PendingDecrement> batch, List<PendingDecrement> duplicates) {
+        long now = System.currentTimeMillis();
+        List<PendingDecrement> withOrderId = batch.stream().filter(pending -> pending.orderId() != null).toList();
+        int[] claimed = jdbcTemplate.batchUpdate(
+            "INSERT OR IGNORE INTO stock_decrement_orders (order_id, product_id, quantity, applied_at) VALUES (?, ?, ?, ?)",
+            withOrderId.stream()
+                .map(pending -> new Object[] {pending.orderId(), pending.productId(), pending.quantity(), now})
+                .toList());
+        Set<PendingDecrement> duplicated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < withOrderId.size(); i++) {
+            if (claimed[i] == 0) {
+                duplicated.add(withOrderId.get(i));
+            }
+        }
+        duplicates.addAll(duplicated);
+        return batch.stream().filter(pending -> !duplicated.contains(pending)).toList();
+    }
+
+    /**
+     * 却下した注文の記録を取り消す（在庫が補充された後の再送で反映できるように）
+     */
+    private void unclaimOrders(List<PendingDecrement> rejected) {
+        List<Object[]> orderIds = rejected.stream()
+            .filter(pending -> pending.orderId() != null)
+            .map(pending -> new Object[] {pending.orderId()})
+            .toList();
+        if (!orderIds.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM stock_decrement_orders WHERE order_id = ?", orderIds);
+        }
+    }
+
+    private void settle(Map<Long, Integer> totals) {
+        try {
+            stockLedger.settle(totals);
+        } catch (RuntimeException e) {
+            // 精算に失敗した分は在庫カウンタの補正で回収される
+            log.warn("在庫カウンタの精算に失敗しました: {}", e.getMessage());
+        }
+    }
+
+    private void apply(
+        Long productId,
+        List<PendingDecrement> requests,
+        List<PendingDecrement> accepted,
+        List<PendingDecrement> rejected
+    ) {
+        int total = requests.stream().mapToInt(PendingDecrement::quantity).sum();
+        if (productRepository.decreaseStockIfAvailable(productId, total) == 1) {
+            accepted.addAll(requests);
+            return;
+        }
+
+        // まとめた数量では不足するため、到着順に引き当て可能な要求だけを受け付ける
+        Optional<Integer> stock = productRepository.findStockQuantityById(productId);
+        if (stock.isEmpty()) {
+            rejected.addAll(requests);
+            return;
+        }
+        int remaining = stock.get();
+        int acceptedTotal = 0;
+        List<PendingDecrement> acceptable = new ArrayList<>();
+        for (PendingDecrement pending : requests) {
+            if (pending.quantity() <= remaining) {
+                remaining -= pending.quantity();
+                acceptedTotal += pending.quantity();
+                acceptable.add(pending);
+            } else {
+                rejected.add(pending);
+            }
+        }
+        if (acceptedTotal > 0 && productRepository.decreaseStockIfAvailable(productId, acceptedTotal) == 1) {
+            accepted.addAll(acceptable);
+        } else {
+            rejected.addAll(acceptable);
+        }
+    }
+
+    private record PendingDecrement(Long orderId, Long productId, int quantity, CompletableFuture<Boolean> future) {}
+}
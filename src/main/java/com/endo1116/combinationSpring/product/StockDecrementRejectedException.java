@@ -0,0 +1,14 @@
+package com.endo1116.combinationSpring.product;
+
+/**
+ * DB の在庫が足りず、在庫減算が却下された場合の例外
+ * 
+ * トランザクションの失敗（再試行で反映できる）と区別するために使う。
+ * 却下した数量は {@link StockDecrementBatcher} が精算済み。
+ */
+class StockDecrementRejectedException extends IllegalStateException {
+
+    StockDecrementRejectedException(Long productId, int quantity) {
+        super(String.format("在庫が不足しています。商品ID: %d, 要求数: %d", productId, quantity));
+    }
+}
@@ -0,0 +1,40 @@
+package com.endo1116.combinationSpring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * アプリケーション全体の Bean 定義が衝突なく登録できること
+ *
+ * 自動構成と同名の Bean を定義すると BeanDefinitionOverrideException で起動できなくなる。
+ * DB・Redis・Kafka に接続せずに検証するため、Bean 定義の登録が終わった時点でリフレッシュを中断する。
+ */
+class ApplicationBeanDefinitionTests {
+
+    @Test
+    void registersBeanDefinitionsWithoutOverriding() {
+        SpringApplication application = new SpringApplication(CombinationSpringApplication.class);
+        application.addInitializers(context -> context.addBeanFactoryPostProcessor(beanFactory -> {
+            throw new DefinitionsRegistered(beanFactory.getBeanDefinitionNames());
+        }));
+
+        Throwable thrown = catchThrowable(application::run);
+
+        assertThat(thrown).isInstanceOf(DefinitionsRegistered.class);
+        assertThat(((DefinitionsRegistered) thrown).names)
+            .contains("kafkaTemplate", "profiledKafkaProducerMetrics");
+    }
+
+    private static final class DefinitionsRegistered extends RuntimeException {
+
+        private final String[] names;
+
+        private DefinitionsRegistered(String[] names) {
+            super("Bean 定義の登録が完了しました");
+            this.names = names;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import com.endo1116.combinationSpring.config.EventEncodingProperties;
+import com.endo1116.combinationSpring.config.EventPayloadDeserializer;
+import com.endo1116.combinationSpring.config.EventPayloadSerializer;
+import com.endo1116.combinationSpring.config.EventSchemaRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * attendance.recorded のペイロード比較（JSON vs バイナリ）
+ * 
+ * ペイロードサイズと serialize / deserialize の所要時間を出力する。
+ * 実行: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class AttendanceRecordedEventSchemaBenchmark {
+
+    private static final String TOPIC = "attendance.recorded";
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void compareWithJson() {
+        AttendanceRecordedEvent event = new AttendanceRecordedEvent(
+            98765L, "EMP-00123", LocalDate.of(2024, 6, 3),
+            LocalDateTime.of(2024, 6, 3, 8, 58, 12), LocalDateTime.of(2024, 6, 3, 18, 4, 45),
+            486, AttendanceStatus.COMPLETED,
+            42L, "ORG-TOKYO-01", LocalTime.of(9, 0), LocalTime.of(18, 0), 60, true,
+            "顧客訪問のため直行", LocalDateTime.of(2024, 6, 3, 18, 5, 2));
+
+        EventSchemaRegistry registry = new EventSchemaRegistry(List.of(new AttendanceRecordedEventSchema()));
+        Map<String, Object> configs = Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.endo1116.combinationSpring.*");
+        EventPayloadSerializer json = new EventPayloadSerializer(registry, EventEncodingProperties.Format.JSON);
+        EventPayloadSerializer binary = new EventPayloadSerializer(registry, EventEncodingProperties.Format.BINARY);
+        EventPayloadDeserializer deserializer = new EventPayloadDeserializer(registry);
+        json.configure(configs, false);
+        binary.configure(configs, false);
+        deserializer.configure(configs, false);
+
+        // 受信側は JSON・バイナリのどちらも読めること
+        RecordHeaders jsonHeaders = new RecordHeaders();
+        byte[] jsonPayload = json.serialize(TOPIC, jsonHeaders, event);
+        byte[] binaryPayload = binary.serialize(TOPIC, new RecordHeaders(), event);
+        assertThat(deserializer.deserialize(TOPIC, jsonHeaders, jsonPayload)).usingRecursiveComparison().isEqualTo(event);
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), binaryPayload)).usingRecursiveComparison().isEqualTo(event);
+
+        // 新しいバージョン（末尾にフィールド追加）で書かれたペイロードも既知のフィールドまで読めること
+        byte[] newer = Arrays.copyOf(binaryPayload, binaryPayload.length + 5);
+        newer[3] = (byte) (AttendanceRecordedEventSchema.VERSION + 1);
+        assertThat(deserializer.deserialize(TOPIC, new RecordHeaders(), newer)).usingRecursiveComparison().isEqualTo(event);
+
+        Result jsonResult = measure(json, deserializer, event);
+        Result binaryResult = measure(binary, deserializer, event);
+
+        System.out.printf("%-8s %8s %16s %18s%n", "format", "bytes", "serialize(ns/op)", "deserialize(ns/op)");
+        System.out.printf("%-8s %8d %16.1f %18.1f%n", "json", jsonResult.bytes, jsonResult.serializeNanos, jsonResult.deserializeNanos);
+        System.out.printf("%-8s %8d %16.1f %18.1f%n", "binary", binaryResult.bytes, binaryResult.serializeNanos, binaryResult.deserializeNanos);
+
+        assertThat(binaryResult.bytes).isLessThan(jsonResult.bytes);
+    }
+
+    private static Result measure(EventPayloadSerializer serializer, EventPayloadDeserializer deserializer,
+                                  AttendanceRecordedEvent event) {
+        // JsonDeserializer は読み込み後に型ヘッダを削除するため、呼び出しごとに複製して渡す
+        RecordHeaders headers = new RecordHeaders();
+        byte[] encoded = serializer.serialize(TOPIC, headers, event);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), event).length;
+            sink += deserializer.deserialize(TOPIC, new RecordHeaders(headers.toArray()), encoded).hashCode();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.serialize(TOPIC, new RecordHeaders(), event).length;
+        }
+        double serializeNanos = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += deserializer.deserialize(TOPIC, new RecordHeaders(headers.toArray()), encoded).hashCode();
+        }
+        double deserializeNanos = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        assertThat(sink).isNotZero();
+        return new Result(encoded.length, serializeNanos, deserializeNanos);
+    }
+
+    private record Result(int bytes, double serializeNanos, double deserializeNanos) {}
+}
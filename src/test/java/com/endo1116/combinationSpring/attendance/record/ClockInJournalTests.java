@@ -0,0 +1,173 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 出勤打刻のジャーナルの再起動時の復旧（チェックポイント以降の打刻の再投入と末尾の壊れたレコードの切り捨て）と、
+ * 登録済みの打刻の取り除き
+ */
+class ClockInJournalTests {
+
+    private static final LocalDate WORK_DATE = LocalDate.of(2024, 6, 3);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private Path journalPath;
+    private final List<ClockInJournal> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:sqlite:" + dir.resolve("app.db")));
+        journalPath = dir.resolve("clock-in.journal");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (ClockInJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void requeuesEntriesAfterCheckpointOnRestart() throws Exception {
+        ClockInJournal journal = open("node-a", journalPath);
+        append(journal, "E001", "E002", "E003");
+        journal.recordCheckpoint(1);
+        journal.close();
+        opened.remove(journal);
+
+        ClockInJournal reopened = open("node-a", journalPath);
+
+        assertThat(sequences(drain(reopened))).containsExactly(2L, 3L);
+        assertThat(append(reopened, "E004")).containsExactly(4L);
+    }
+
+    @Test
+    void truncatesTornTailAndKeepsAppendingAfterLastValidRecord() throws Exception {
+        ClockInJournal journal = open("node-a", journalPath);
+        append(journal, "E001", "E002");
+        journal.close();
+        opened.remove(journal);
+        long validSize = Files.size(journalPath);
+        // 追記の途中で停止した: ヘッダは書けたがペイロードが足りない
+        Files.write(journalPath, new byte[] {0, 0, 0, 64, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+
+        ClockInJournal reopened = open("node-a", journalPath);
+
+        assertThat(Files.size(journalPath)).isEqualTo(validSize);
+        assertThat(sequences(drain(reopened))).containsExactly(1L, 2L);
+        assertThat(append(reopened, "E003")).containsExactly(3L);
+        reopened.close();
+        opened.remove(reopened);
+
+        assertThat(sequences(drain(open("node-a", journalPath)))).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void truncatesRecordWithBadChecksum() throws Exception {
+        ClockInJournal journal = open("node-a", journalPath);
+        append(journal, "E001");
+        long firstRecordEnd = Files.size(journalPath);
+        append(journal, "E002");
+        journal.close();
+        opened.remove(journal);
+        try (RandomAccessFile file = new RandomAccessFile(journalPath.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        ClockInJournal reopened = open("node-a", journalPath);
+
+        assertThat(Files.size(journalPath)).isEqualTo(firstRecordEnd);
+        List<ClockInEntry> recovered = drain(reopened);
+        assertThat(sequences(recovered)).containsExactly(1L);
+        assertThat(recovered.get(0).employeeId()).isEqualTo("E001");
+        assertThat(recovered.get(0).clockIn()).isEqualTo(WORK_DATE.atTime(9, 0));
+    }
+
+    @Test
+    void checkpointOfAnotherJournalDoesNotSkipEntries() throws Exception {
+        ClockInJournal nodeA = open("node-a", journalPath);
+        Path otherPath = dir.resolve("other.journal");
+        ClockInJournal nodeB = open("node-b", otherPath);
+        append(nodeA, "E001", "E002");
+        append(nodeB, "E101");
+        nodeB.recordCheckpoint(1);
+        nodeA.close();
+        opened.remove(nodeA);
+
+        assertThat(sequences(drain(open("node-a", journalPath)))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rewritesUncommittedTailOnceCommittedPrefixExceedsThreshold() throws Exception {
+        ClockInJournal journal = open("node-a", journalPath, DataSize.ofBytes(1));
+        append(journal, "E001");
+        long recordSize = Files.size(journalPath);
+        append(journal, "E002", "E003");
+        journal.recordCheckpoint(2);
+        journal.committed(2);
+        append(journal, "E004");
+        journal.close();
+        opened.remove(journal);
+
+        assertThat(Files.size(journalPath)).isEqualTo(recordSize * 2);
+        ClockInJournal reopened = open("node-a", journalPath);
+        assertThat(sequences(drain(reopened))).containsExactly(3L, 4L);
+        assertThat(append(reopened, "E005")).containsExactly(5L);
+    }
+
+    private ClockInJournal open(String journalId, Path path) throws IOException {
+        return open(journalId, path, DataSize.ofMegabytes(64));
+    }
+
+    private ClockInJournal open(String journalId, Path path, DataSize compactThreshold) throws IOException {
+        ClockInProperties properties = new ClockInProperties();
+        properties.setJournalPath(path.toString());
+        properties.setJournalId(journalId);
+        properties.setCompactThreshold(compactThreshold);
+        ClockInJournal journal = new ClockInJournal(jdbcTemplate, properties);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private static List<Long> append(ClockInJournal journal, String... employeeIds) {
+        List<Long> sequences = new ArrayList<>();
+        for (String employeeId : employeeIds) {
+            ClockInCommand command = new ClockInCommand(employeeId, "ORG-A", WORK_DATE, WORK_DATE.atTime(9, 0), null);
+            sequences.add(journal.append(command).join().sequence());
+        }
+        return sequences;
+    }
+
+    private static List<ClockInEntry> drain(ClockInJournal journal) throws InterruptedException {
+        return journal.drain(100, Duration.ofMillis(50));
+    }
+
+    private static List<Long> sequences(List<ClockInEntry> entries) {
+        return entries.stream().map(ClockInEntry::sequence).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package com.endo1116.combinationSpring.attendance.record;
+
+import com.endo1116.combinationSpring.attendance.setting.ManagementSettingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 勤務日時点で有効な管理設定の解決
+ */
+class ManagementSettingTimelineTests {
+
+    private static final LocalDate APRIL = LocalDate.of(2024, 4, 1);
+    private static final LocalDate OCTOBER = LocalDate.of(2024, 10, 1);
+
+    private final ManagementSettingTimeline timeline =
+        new ManagementSettingTimeline(mock(ManagementSettingService.class));
+
+    @Test
+    void resolvesSettingEffectiveOnWorkDate() {
+        timeline.apply(setting(1L, "ORG-A", 9, APRIL));
+        timeline.apply(setting(2L, "ORG-A", 10, OCTOBER));
+
+        assertThat(timeline.resolve("ORG-A", LocalDate.of(2024, 9, 30)).settingId()).isEqualTo(1L);
+        assertThat(timeline.resolve("ORG-A", OCTOBER).settingId()).isEqualTo(2L);
+        assertThat(timeline.resolve("ORG-A", LocalDate.of(2025, 1, 6)).settingId()).isEqualTo(2L);
+    }
+
+    @Test
+    void movesSettingWhenEffectiveDateOrOrganizationChanges() {
+        timeline.apply(setting(1L, "ORG-A", 9, APRIL));
+        timeline.apply(setting(1L, "ORG-A", 9, OCTOBER));
+
+        assertThat(timeline.resolve("ORG-A", LocalDate.of(2024, 6, 3)).settingId()).isNull();
+
+        timeline.apply(setting(1L, "ORG-B", 9, OCTOBER));
+        timeline.apply(setting(2L, "ORG-A", 8, APRIL));
+
+        assertThat(timeline.resolve("ORG-A", OCTOBER).settingId()).isEqualTo(2L);
+        assertThat(timeline.resolve("ORG-B", OCTOBER).settingId()).isEqualTo(1L);
+    }
+
+    @Test
+    void resolvesRecordsWithoutOrganizationAgainstConfiguredDefault() {
+        ReflectionTestUtils.setField(timeline, "defaultOrganizationId", "ORG-A");
+        timeline.apply(setting(1L, "ORG-A", 9, APRIL));
+        timeline.apply(setting(2L, "ORG-B", 10, OCTOBER));
+
+        assertThat(timeline.resolve(null, OCTOBER).settingId()).isEqualTo(1L);
+        assertThat(timeline.resolve("ORG-UNKNOWN", OCTOBER).settingId()).isEqualTo(1L);
+    }
+
+    @Test
+    void resolvesRecordsWithoutOrganizationAgainstLatestEffectiveSetting() {
+        timeline.apply(setting(1L, "ORG-A", 9, APRIL));
+        timeline.apply(setting(2L, "ORG-B", 10, OCTOBER));
+        timeline.apply(setting(3L, "ORG-C", 8, OCTOBER));
+
+        assertThat(timeline.resolve(null, LocalDate.of(2024, 6, 3)).settingId()).isEqualTo(1L);
+        // 適用開始日が同じ場合は設定IDの大きいもの
+        assertThat(timeline.resolve(null, OCTOBER).settingId()).isEqualTo(3L);
+    }
+
+    @Test
+    void fallsBackToDefaultSnapshotOnlyWhenNothingIsEffective() {
+        assertThat(timeline.resolve(null, APRIL).settingId()).isNull();
+        assertThat(timeline.resolve(null, APRIL).standardStartTime()).isEqualTo(LocalTime.of(9, 0));
+
+        timeline.apply(setting(1L, "ORG-A", 10, OCTOBER));
+
+        assertThat(timeline.resolve("ORG-A", APRIL).settingId()).isNull();
+        assertThat(timeline.resolve("ORG-A", OCTOBER).standardStartTime()).isEqualTo(LocalTime.of(10, 0));
+    }
+
+    private static ManagementSettingSnapshot setting(Long id, String organizationId, int startHour, LocalDate effectiveFrom) {
+        return new ManagementSettingSnapshot(id, organizationId, LocalTime.of(startHour, 0),
+            LocalTime.of(startHour + 9, 0), 60, true, effectiveFrom);
+    }
+}
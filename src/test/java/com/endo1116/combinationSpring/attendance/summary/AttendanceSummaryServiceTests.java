@@ -0,0 +1,157 @@
+package com.endo1116.combinationSpring.attendance.summary;
+
+import com.endo1116.combinationSpring.attendance.record.AttendanceRecordService;
+import com.endo1116.combinationSpring.attendance.record.AttendanceRecordedEvent;
+import com.endo1116.combinationSpring.attendance.record.AttendanceStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 勤怠記録イベントごとの月次集計の差分更新（加算・差し引き・古いイベントの無視・既存記録の反映）
+ */
+class AttendanceSummaryServiceTests {
+
+    private static final LocalDate WORK_DATE = LocalDate.of(2024, 6, 3);
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 6, 3, 18, 30);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private AttendanceRecordService attendanceRecordService;
+    private AttendanceSummaryService service;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + dir.resolve("app.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE attendance_monthly_summaries (
+                id TEXT PRIMARY KEY, employee_id TEXT, year_month TEXT, work_days INTEGER, worked_minutes INTEGER,
+                overtime_minutes INTEGER, late_arrivals INTEGER, absences INTEGER, leave_days INTEGER, updated_at TIMESTAMP)
+            """);
+        jdbcTemplate.execute("""
+            CREATE TABLE attendance_summary_contributions (
+                record_id INTEGER PRIMARY KEY, employee_id TEXT, year_month TEXT, work_days INTEGER, worked_minutes INTEGER,
+                overtime_minutes INTEGER, late_arrivals INTEGER, absences INTEGER, leave_days INTEGER,
+                record_updated_at TIMESTAMP)
+            """);
+        attendanceRecordService = mock(AttendanceRecordService.class);
+        service = new AttendanceSummaryService(mock(AttendanceMonthlySummaryRepository.class), attendanceRecordService,
+            jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    @Test
+    void addsRecordToMonthlySummary() {
+        // 9:10 出勤（遅刻）、19:00 退勤（残業60分）
+        service.handleAttendanceRecordedEvent(worked(1L, WORK_DATE.atTime(9, 10), WORK_DATE.atTime(19, 0), UPDATED_AT));
+        service.handleAttendanceRecordedEvent(worked(2L, WORK_DATE.plusDays(1).atTime(8, 55),
+            WORK_DATE.plusDays(1).atTime(18, 0), UPDATED_AT));
+
+        assertThat(summary("E001", "2024-06")).containsEntry("work_days", 2)
+            .containsEntry("worked_minutes", 590 + 545)
+            .containsEntry("overtime_minutes", 60)
+            .containsEntry("late_arrivals", 1);
+    }
+
+    @Test
+    void retractsPreviousContributionWhenRecordChanges() {
+        service.handleAttendanceRecordedEvent(worked(1L, WORK_DATE.atTime(9, 10), WORK_DATE.atTime(19, 0), UPDATED_AT));
+        service.handleAttendanceRecordedEvent(event(1L, WORK_DATE, null, null, AttendanceStatus.LEAVE, UPDATED_AT.plusHours(1)));
+
+        assertThat(summary("E001", "2024-06")).containsEntry("work_days", 0)
+            .containsEntry("worked_minutes", 0)
+            .containsEntry("overtime_minutes", 0)
+            .containsEntry("late_arrivals", 0)
+            .containsEntry("leave_days", 1);
+    }
+
+    @Test
+    void movesContributionWhenWorkDateMovesToAnotherMonth() {
+        service.handleAttendanceRecordedEvent(worked(1L, WORK_DATE.atTime(9, 0), WORK_DATE.atTime(18, 0), UPDATED_AT));
+        LocalDate july = LocalDate.of(2024, 7, 1);
+        service.handleAttendanceRecordedEvent(worked(1L, july.atTime(9, 0), july.atTime(18, 0), UPDATED_AT.plusDays(1)));
+
+        assertThat(summary("E001", "2024-06")).containsEntry("work_days", 0).containsEntry("worked_minutes", 0);
+        assertThat(summary("E001", "2024-07")).containsEntry("work_days", 1).containsEntry("worked_minutes", 540);
+    }
+
+    @Test
+    void ignoresRedeliveredAndStaleEvents() {
+        AttendanceRecordedEvent clockIn = event(1L, WORK_DATE, WORK_DATE.atTime(9, 0), null, AttendanceStatus.WORKING,
+            UPDATED_AT);
+        AttendanceRecordedEvent clockOut = worked(1L, WORK_DATE.atTime(9, 0), WORK_DATE.atTime(20, 0),
+            UPDATED_AT.plusHours(2));
+        service.handleAttendanceRecordedEvent(clockIn);
+        service.handleAttendanceRecordedEvent(clockOut);
+        service.handleAttendanceRecordedEvent(clockOut);
+        service.handleAttendanceRecordedEvent(clockIn);
+
+        assertThat(summary("E001", "2024-06")).containsEntry("work_days", 1)
+            .containsEntry("worked_minutes", 660)
+            .containsEntry("overtime_minutes", 120);
+    }
+
+    @Test
+    void backfillsExistingRecordsOnce() {
+        AttendanceRecordedEvent applied = worked(1L, WORK_DATE.atTime(9, 0), WORK_DATE.atTime(18, 0), UPDATED_AT);
+        service.handleAttendanceRecordedEvent(applied);
+        doAnswer(invocation -> {
+            Consumer<AttendanceRecordedEvent> consumer = invocation.getArgument(0);
+            consumer.accept(applied);
+            consumer.accept(event(2L, WORK_DATE.plusDays(1), null, null, AttendanceStatus.ABSENT, UPDATED_AT));
+            return null;
+        }).when(attendanceRecordService).streamRecordedEvents(any());
+
+        service.backfill();
+        service.backfill();
+
+        verify(attendanceRecordService, times(1)).streamRecordedEvents(any());
+        assertThat(summary("E001", "2024-06")).containsEntry("work_days", 1)
+            .containsEntry("worked_minutes", 540)
+            .containsEntry("absences", 1);
+    }
+
+    private Map<String, Object> summary(String employeeId, String yearMonth) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT * FROM attendance_monthly_summaries WHERE id = ?",
+            AttendanceMonthlySummary.idOf(employeeId, yearMonth));
+        assertThat(rows).hasSize(1);
+        return rows.get(0);
+    }
+
+    private static AttendanceRecordedEvent worked(Long recordId, LocalDateTime clockIn, LocalDateTime clockOut,
+                                                  LocalDateTime updatedAt) {
+        return event(recordId, clockIn.toLocalDate(), clockIn, clockOut, AttendanceStatus.COMPLETED, updatedAt);
+    }
+
+    private static AttendanceRecordedEvent event(Long recordId, LocalDate workDate, LocalDateTime clockIn,
+                                                 LocalDateTime clockOut, AttendanceStatus status, LocalDateTime updatedAt) {
+        Integer workedMinutes = clockIn != null && clockOut != null
+            ? (int) Duration.between(clockIn, clockOut).toMinutes() : null;
+        return new AttendanceRecordedEvent(recordId, "E001", workDate, clockIn, clockOut, workedMinutes, status,
+            1L, "ORG-A", LocalTime.of(9, 0), LocalTime.of(18, 0), 60, true, null, updatedAt);
+    }
+}
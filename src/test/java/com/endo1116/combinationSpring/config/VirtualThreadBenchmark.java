@@ -0,0 +1,124 @@
+package com.endo1116.combinationSpring.config;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * プラットフォームスレッド（Tomcat 既定の200スレッド）と仮想スレッドの比較
+ * 
+ * 1リクエスト = Redis 待ち（ピン留めなし）+ SQLite ドライバ相当の synchronized 区間での I/O（ピン留めあり）を模擬し、
+ * 一斉に投入したリクエストの p99 レイテンシと最大同時実行数を出力する。
+ * 実行: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    private static final int REQUESTS = 2_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long REDIS_WAIT_MILLIS = 10;
+    private static final long JDBC_IO_MILLIS = 1;
+
+    /**
+     * SQLite ドライバ内部のモニタ相当
+     */
+    private static final Object DRIVER_LOCK = new Object();
+
+    @Test
+    void compareWithPlatformThreads() throws Exception {
+        DataSource driver = fakeSqliteDataSource();
+        int carriers = Runtime.getRuntime().availableProcessors();
+
+        Result platform;
+        try (ExecutorService executor = Executors.newFixedThreadPool(PLATFORM_THREADS)) {
+            platform = run(executor, driver);
+        }
+        Result virtualUnbounded;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtualUnbounded = run(executor, driver);
+        }
+        Result virtualLimited;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtualLimited = run(executor,
+                new JdbcConcurrencyLimitingDataSource(driver, Math.max(1, carriers / 2), Duration.ofMinutes(1)));
+        }
+
+        System.out.printf("carriers=%d, requests=%d%n", carriers, REQUESTS);
+        System.out.printf("%-26s %10s %10s %12s%n", "mode", "p50(ms)", "p99(ms)", "maxInFlight");
+        print("platform(200)", platform);
+        print("virtual", virtualUnbounded);
+        print("virtual+jdbc-limit", virtualLimited);
+
+        assertThat(virtualLimited.maxInFlight).isGreaterThan(platform.maxInFlight);
+    }
+
+    private static Result run(ExecutorService executor, DataSource dataSource) throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Future<Long>> futures = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(REDIS_WAIT_MILLIS);
+                    try (Connection connection = dataSource.getConnection()) {
+                        connection.isValid(0);
+                    }
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return System.nanoTime() - submitted;
+            }));
+        }
+        List<Long> latencies = new ArrayList<>(REQUESTS);
+        for (Future<Long> future : futures) {
+            latencies.add(future.get());
+        }
+        Collections.sort(latencies);
+        return new Result(percentile(latencies, 0.50), percentile(latencies, 0.99), maxInFlight.get());
+    }
+
+    /**
+     * synchronized 区間内でブロッキング I/O を行う JDBC ドライバを模擬する
+     */
+    private static DataSource fakeSqliteDataSource() {
+        Connection connection = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                if ("isValid".equals(method.getName())) {
+                    synchronized (DRIVER_LOCK) {
+                        Thread.sleep(JDBC_IO_MILLIS);
+                    }
+                    return true;
+                }
+                return null;
+            });
+        return (DataSource) Proxy.newProxyInstance(
+            DataSource.class.getClassLoader(), new Class<?>[] {DataSource.class}, (proxy, method, args) ->
+                "getConnection".equals(method.getName()) ? connection : null);
+    }
+
+    private static double percentile(List<Long> sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%-26s %10.1f %10.1f %12d%n", mode, result.p50Millis, result.p99Millis, result.maxInFlight);
+    }
+
+    private record Result(double p50Millis, double p99Millis, int maxInFlight) {}
+}
@@ -0,0 +1,100 @@
+package com.endo1116.combinationSpring.order;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 注文のアーカイブと、アーカイブ済みの id を再利用しない採番（orders の AUTOINCREMENT への作り直し）
+ */
+class OrderArchiverTests {
+
+    private static final LocalDateTime OLD = LocalDateTime.of(2024, 1, 10, 12, 0);
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private OrderArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:sqlite:" + dir.resolve("app.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // ddl-auto が作る形（AUTOINCREMENT の無い rowid）
+        jdbcTemplate.execute("""
+            CREATE TABLE orders (id integer, created_at timestamp, customer_name varchar(255) not null,
+                product_id bigint not null, quantity integer, status varchar(255), total_price float, primary key (id))
+            """);
+        jdbcTemplate.execute("CREATE INDEX idx_orders_status_created_at ON orders (status, created_at)");
+        jdbcTemplate.execute("""
+            CREATE TABLE orders_archive (id bigint not null, archived_at timestamp, created_at timestamp,
+                customer_name varchar(255), product_id bigint, quantity integer, status varchar(255),
+                total_price float, primary key (id))
+            """);
+        archiver = new OrderArchiver(new NamedParameterJdbcTemplate(dataSource),
+            new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(archiver, "retention", Duration.ofDays(30));
+        ReflectionTestUtils.setField(archiver, "chunkSize", 2);
+    }
+
+    @Test
+    void rebuildsOrdersWithAutoIncrementKeepingRowsAndIndexes() {
+        insertOrder(1L, "DELIVERED");
+        insertOrder(2L, "PENDING");
+        jdbcTemplate.update("INSERT INTO orders_archive (id, status, created_at) VALUES (7, 'DELIVERED', ?)",
+            Timestamp.valueOf(OLD));
+
+        archiver.ensureAutoIncrement();
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = 'orders'", String.class))
+            .containsIgnoringCase("AUTOINCREMENT");
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT name FROM sqlite_master WHERE type = 'index' AND tbl_name = 'orders'", String.class))
+            .contains("idx_orders_status_created_at");
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id", Long.class)).containsExactly(1L, 2L);
+        // アーカイブ済みの最大の id より後から採番する
+        assertThat(insertOrder(null, "PENDING")).isEqualTo(8L);
+
+        archiver.ensureAutoIncrement();
+        assertThat(insertOrder(null, "PENDING")).isEqualTo(9L);
+    }
+
+    @Test
+    void archivesOrderHoldingMaxIdWithoutReusingIt() {
+        insertOrder(1L, "DELIVERED");
+        insertOrder(2L, "CANCELLED");
+        insertOrder(3L, "DELIVERED");
+        archiver.ensureAutoIncrement();
+
+        archiver.archive();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders", Long.class)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders_archive ORDER BY id", Long.class))
+            .containsExactly(1L, 2L, 3L);
+        assertThat(insertOrder(null, "PENDING")).isEqualTo(4L);
+    }
+
+    private long insertOrder(Long id, String status) {
+        jdbcTemplate.update("""
+            INSERT INTO orders (id, created_at, customer_name, product_id, quantity, status, total_price)
+            VALUES (?, ?, 'customer', 1, 1, ?, 100.0)
+            """, id, Timestamp.valueOf(OLD), status);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+    }
+}
@@ -0,0 +1,78 @@
+package com.endo1116.combinationSpring.product;
+
+import com.endo1116.combinationSpring.config.BinaryCacheValueSerializer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * "products" キャッシュ値のシリアライザ比較（JSON vs バイナリ）
+ * 
+ * エントリサイズと encode / decode の所要時間を出力する。
+ * 実行: ./gradlew benchmark
+ */
+@Tag("benchmark")
+class ProductCacheCodecBenchmark {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void compareWithJson() {
+        Product product = new Product(
+            12345L, "ワイヤレスキーボード", "テンキー付きの薄型ワイヤレスキーボード",
+            4980.0, 120, "周辺機器",
+            LocalDateTime.of(2024, 4, 1, 10, 30, 15, 123_000_000),
+            LocalDateTime.of(2024, 5, 2, 18, 0, 0));
+
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+        json.configure(mapper -> mapper.registerModule(new JavaTimeModule()));
+        BinaryCacheValueSerializer<Product> binary =
+            new BinaryCacheValueSerializer<>(new ProductCacheCodec(), json);
+
+        // 旧形式（JSON）のエントリもバイナリ側で読めること
+        assertThat(binary.deserialize(json.serialize(product))).isEqualTo(product);
+        assertThat(binary.deserialize(binary.serialize(product))).isEqualTo(product);
+
+        Result jsonResult = measure(json, product);
+        Result binaryResult = measure(binary, product);
+
+        System.out.printf("%-8s %8s %14s %14s%n", "codec", "bytes", "encode(ns/op)", "decode(ns/op)");
+        System.out.printf("%-8s %8d %14.1f %14.1f%n", "json", jsonResult.bytes, jsonResult.encodeNanos, jsonResult.decodeNanos);
+        System.out.printf("%-8s %8d %14.1f %14.1f%n", "binary", binaryResult.bytes, binaryResult.encodeNanos, binaryResult.decodeNanos);
+
+        assertThat(binaryResult.bytes).isLessThan(jsonResult.bytes);
+    }
+
+    private static Result measure(RedisSerializer<Object> serializer, Product product) {
+        byte[] encoded = serializer.serialize(product);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += serializer.serialize(product).length;
+            sink += serializer.deserialize(encoded).hashCode();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.serialize(product).length;
+        }
+        double encodeNanos = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += serializer.deserialize(encoded).hashCode();
+        }
+        double decodeNanos = (double) (System.nanoTime() - start) / ITERATIONS;
+
+        assertThat(sink).isNotZero();
+        return new Result(encoded.length, encodeNanos, decodeNanos);
+    }
+
+    private record Result(int bytes, double encodeNanos, double decodeNanos) {}
+}